@@ -2,11 +2,13 @@ package com.example.recipeapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = {
     com.google.cloud.spring.autoconfigure.core.GcpContextAutoConfiguration.class,
     com.google.cloud.spring.autoconfigure.firestore.GcpFirestoreAutoConfiguration.class
 })
+@EnableScheduling
 public class RecipeAppApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.example.recipeapp.config;
+
+/**
+ * Lecture de l'en-tête Accept-Encoding : un codage est accepté s'il est listé (ou couvert par *)
+ * avec un poids non nul ; "gzip;q=0" est donc un refus explicite.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Vrai si le client accepte ce codage de contenu
+     */
+    public static boolean accepts(String header, String coding) {
+        if (header == null) {
+            return false;
+        }
+        Double wildcard = null;
+        for (String item : header.split(",")) {
+            String[] parts = item.split(";");
+            String name = parts[0].trim();
+            double quality = quality(parts);
+            if (name.equalsIgnoreCase(coding)) {
+                return quality > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.recipeapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formats des réponses de l'API, négociés par l'en-tête Accept : JSON par défaut, Smile ou CBOR
+ * pour les clients qui les demandent explicitement. Les formats binaires reprennent la configuration
+ * Jackson de l'application ; Smile encode les chaînes répétées (noms de champs, ID, énumérations)
+ * par référence à leur première occurrence dans le document. En CBOR, ces références (stringref,
+ * balises 256/25) ne sont pas comprises par tous les décodeurs : elles ne sont émises que pour
+ * "application/cbor; stringref=true", CBOR simple restant le défaut.
+ */
+@Component
+public class ApiFormats {
+
+    private static final String STRINGREF_PARAMETER = "stringref";
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR_STRINGREF =
+            new MediaType(MediaType.APPLICATION_CBOR, Map.of(STRINGREF_PARAMETER, "true"));
+
+    /**
+     * Format d'une réponse et son type de contenu
+     */
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(APPLICATION_SMILE),
+        CBOR(MediaType.APPLICATION_CBOR),
+        CBOR_STRINGREF(APPLICATION_CBOR_STRINGREF);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder mapperBuilder;
+
+    private ObjectMapper smileMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper cborStringrefMapper;
+
+    @PostConstruct
+    void init() {
+        smileMapper = mapperBuilder.factory(SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build()).build();
+        cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+        cborStringrefMapper = mapperBuilder.factory(CBORFactory.builder()
+                .enable(CBORGenerator.Feature.STRINGREF)
+                .build()).build();
+    }
+
+    /**
+     * Format demandé par l'en-tête Accept : un format binaire seulement s'il est nommé
+     * avec une qualité supérieure à celle de JSON (ou des jokers), JSON sinon
+     * Les références de chaînes CBOR exigent le paramètre stringref=true
+     */
+    public Format negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return Format.JSON;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return Format.JSON;
+        }
+
+        Format best = Format.JSON;
+        double bestQuality = 0;
+        double jsonQuality = 0;
+        for (MediaType mediaType : mediaTypes) {
+            double quality = mediaType.getQualityValue();
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()
+                    || mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+                jsonQuality = Math.max(jsonQuality, quality);
+                continue;
+            }
+            Format format = binaryFormat(mediaType);
+            if (format != null && quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return bestQuality > jsonQuality ? best : Format.JSON;
+    }
+
+    private static Format binaryFormat(MediaType mediaType) {
+        if (mediaType.equalsTypeAndSubtype(APPLICATION_SMILE)) {
+            return Format.SMILE;
+        }
+        if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+            return "true".equalsIgnoreCase(mediaType.getParameter(STRINGREF_PARAMETER)) ? Format.CBOR_STRINGREF : Format.CBOR;
+        }
+        return null;
+    }
+
+    /**
+     * Encodeur Jackson d'un format
+     */
+    public ObjectMapper mapper(Format format) {
+        return switch (format) {
+            case JSON -> objectMapper;
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+            case CBOR_STRINGREF -> cborStringrefMapper;
+        };
+    }
+
+    /**
+     * Convertisseurs HTTP des formats binaires (corps de requête et réponses non mises en cache)
+     */
+    List<HttpMessageConverter<?>> binaryConverters() {
+        return List.of(new MappingJackson2SmileHttpMessageConverter(smileMapper),
+                new MappingJackson2CborHttpMessageConverter(cborMapper));
+    }
+}
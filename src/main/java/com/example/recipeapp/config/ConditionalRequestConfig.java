@@ -0,0 +1,46 @@
+package com.example.recipeapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Requêtes conditionnelles sur les pages HTML de détail.
+ * Ces pages assemblent plusieurs documents (auteur, catégorie, recettes) :
+ * l'ETag est l'empreinte du HTML rendu, ce qui évite de renvoyer une page inchangée.
+ * La page d'une recette en est exclue : elle compte une vue et affiche le compteur, son empreinte change à chaque rendu.
+ * Les cartes de recette (pages d'auteur) insèrent le compteur de vues à chaque rendu : l'empreinte suit ce compteur.
+ * Les API calculent leurs ETag à partir des versions des documents (voir ConditionalResponses).
+ */
+@Configuration
+public class ConditionalRequestConfig {
+
+    private static final List<Pattern> DETAIL_PAGES = List.of(
+        Pattern.compile("/categories/[^/]+"),
+        Pattern.compile("/categories/slug/[^/]+"),
+        Pattern.compile("/users/[^/]+"),
+        Pattern.compile("/users/username/[^/]+")
+    );
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> detailPageEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                return DETAIL_PAGES.stream().noneMatch(pattern -> pattern.matcher(path).matches());
+            }
+        };
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/categories/*", "/users/*");
+        // Avant le cache de pages : l'ETag couvre aussi les pages servies depuis le cache
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.recipeapp.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Threads de traitement des requêtes HTTP selon le mode d'exécution (voir ExecutionMode) :
+ * en mode virtual, Tomcat exécute chaque requête sur son propre thread virtuel
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer() {
+        return protocolHandler -> {
+            if (executionMode.isVirtual()) {
+                protocolHandler.setExecutor(executionMode.newExecutor("http-request", 0));
+            }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.recipeapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Mode d'exécution des traitements bloquants (requêtes HTTP, lectures Firestore en parallèle) :
+ * pool de threads système ("platform") ou un thread virtuel par tâche ("virtual").
+ * Les threads virtuels exigent un runtime Java 21 ; ils sont obtenus par réflexion, l'application
+ * restant compilée pour Java 17, et le mode platform est conservé sur un runtime plus ancien.
+ * En mode virtual, les blocages d'un thread virtuel sur son thread porteur (synchronized) sont signalés.
+ */
+@Component
+public class ExecutionMode {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.execution.mode:platform}")
+    private String mode;
+
+    @Value("${recipe-app.execution.pinning-threshold-ms:20}")
+    private long pinningThresholdMs;
+
+    private boolean virtual;
+    private RecordingStream pinningEvents;
+
+    @PostConstruct
+    void init() {
+        if (!"virtual".equalsIgnoreCase(mode)) {
+            System.out.println("🧵 Mode d'exécution : threads système");
+            return;
+        }
+        if (!virtualThreadsSupported()) {
+            System.err.println("⚠️ Threads virtuels indisponibles sur Java " + Runtime.version().feature()
+                    + " (Java 21 requis) : threads système conservés");
+            return;
+        }
+        virtual = true;
+        System.out.println("🧵 Mode d'exécution : threads virtuels");
+        startPinningDetection();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pinningEvents != null) {
+            pinningEvents.close();
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Exécuteur de tâches bloquantes : un thread virtuel par tâche, ou un pool fixe de threads système démons
+     */
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (virtual) {
+            return virtualThreadExecutor(name);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Variante dont le pool de threads système a une file bornée : au-delà, submit() lève une
+     * RejectedExecutionException et l'appelant exécute lui-même la tâche
+     */
+    public ExecutorService newExecutor(String name, int platformThreads, int queueCapacity) {
+        if (virtual) {
+            return virtualThreadExecutor(name);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        int size = Math.max(1, platformThreads);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static boolean virtualThreadsSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService virtualThreadExecutor(String name) {
+        try {
+            // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory()), absent de l'API Java 17
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Création des threads virtuels impossible", e);
+        }
+    }
+
+    private void startPinningDetection() {
+        Counter pinned = Counter.builder("virtual.threads.pinned").register(meterRegistry);
+        pinningEvents = new RecordingStream();
+        pinningEvents.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(pinningThresholdMs)).withStackTrace();
+        pinningEvents.onEvent(PINNED_EVENT, event -> {
+            pinned.increment();
+            System.err.println("⚠️ Thread virtuel bloqué sur son porteur pendant "
+                    + event.getDuration().toMillis() + " ms : " + frames(event.getStackTrace()));
+        });
+        pinningEvents.startAsync();
+    }
+
+    private static String frames(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "pile inconnue";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(8)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" ← "));
+    }
+}
@@ -0,0 +1,489 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.service.ContentChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de pages HTML complètes pour les visiteurs anonymes (GET sans jeton ni session).
+ * Une page n'est mise en cache que si son contrôleur déclare ses dépendances avec tag() ;
+ * elle est stockée compressée et purgée par les ContentChangedEvent qui portent l'une de ses étiquettes,
+ * ou au plus tard après ttl-ms (compteurs non publiés comme événements, écritures des autres instances).
+ * Les requêtes simultanées sur une page absente attendent le rendu de la première au lieu de le refaire.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final String DEPENDENCIES = PageCacheFilter.class.getName() + ".dependencies";
+
+    private static final List<Pattern> CACHEABLE_PAGES = List.of(
+        Pattern.compile("/"),
+        Pattern.compile("/recipes/(?!search$|latest$|top-rated$)[^/]+"),
+        Pattern.compile("/categories/[^/]+")
+    );
+
+    /**
+     * Action rejouée à chaque service de la page depuis le cache (compteur de vues...)
+     */
+    @FunctionalInterface
+    public interface HitAction {
+        void run() throws Exception;
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.page-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recipe-app.page-cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${recipe-app.page-cache.max-page-bytes:1048576}")
+    private int maxPageBytes;
+
+    @Value("${recipe-app.page-cache.coalesce-timeout-ms:5000}")
+    private long coalesceTimeoutMs;
+
+    @Value("${recipe-app.page-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<String, Page> pages = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private long totalBytes;
+
+    // Rendus en cours, partagés avec les requêtes simultanées sur la même page
+    private final ConcurrentHashMap<String, CompletableFuture<Page>> rendering = new ConcurrentHashMap<>();
+
+    // Incrémenté à chaque purge : une page rendue avant une écriture n'est pas mise en cache
+    private final AtomicLong purges = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+    private Counter purged;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("page.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("page.cache.requests").tag("result", "miss").register(meterRegistry);
+        coalesced = Counter.builder("page.cache.requests").tag("result", "coalesced").register(meterRegistry);
+        purged = Counter.builder("page.cache.purged").register(meterRegistry);
+        Gauge.builder("page.cache.bytes", this, cache -> cache.currentBytes()).register(meterRegistry);
+    }
+
+    /**
+     * Déclare les contenus dont dépend la page en cours de rendu (sans effet hors du cache)
+     */
+    public static void tag(HttpServletRequest request, String... tags) {
+        if (request.getAttribute(DEPENDENCIES) instanceof Dependencies dependencies) {
+            dependencies.tags.addAll(List.of(tags));
+        }
+    }
+
+    /**
+     * Action à rejouer quand la page est servie depuis le cache
+     */
+    public static void onHit(HttpServletRequest request, HitAction action) {
+        if (request.getAttribute(DEPENDENCIES) instanceof Dependencies dependencies) {
+            dependencies.actions.add(action);
+        }
+    }
+
+    /**
+     * Exclut la page en cours du cache (rendu dégradé après une erreur)
+     */
+    public static void doNotCache(ServletRequest request) {
+        if (request.getAttribute(DEPENDENCIES) instanceof Dependencies dependencies) {
+            dependencies.degraded = true;
+        }
+    }
+
+    /**
+     * Collecte les dépendances déclarées par le contrôleur pendant le rendu de cette requête
+     */
+    static void collect(HttpServletRequest request, Dependencies dependencies) {
+        request.setAttribute(DEPENDENCIES, dependencies);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return CACHEABLE_PAGES.stream().noneMatch(pattern -> pattern.matcher(path).matches());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Pages personnalisées (jeton ou session), ou rendu déjà collecté par un autre filtre
+        if (request.getHeader(HttpHeaders.AUTHORIZATION) != null || request.getSession(false) != null
+                || request.getAttribute(DEPENDENCIES) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        Page page = cached(key);
+        if (page != null) {
+            hits.increment();
+            serve(page, request, response);
+            return;
+        }
+
+        CompletableFuture<Page> mine = new CompletableFuture<>();
+        CompletableFuture<Page> leader = rendering.putIfAbsent(key, mine);
+        if (leader != null) {
+            page = await(leader);
+            if (page != null) {
+                coalesced.increment();
+                serve(page, request, response);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        misses.increment();
+        Page rendered = null;
+        try {
+            rendered = render(key, request, response, filterChain);
+        } finally {
+            rendering.remove(key, mine);
+            mine.complete(rendered);
+        }
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        purges.incrementAndGet();
+        int count = 0;
+        synchronized (pages) {
+            for (String tag : event.getTags()) {
+                Set<String> keys = keysByTag.get(tag);
+                if (keys == null) {
+                    continue;
+                }
+                for (String key : new ArrayList<>(keys)) {
+                    Page page = pages.remove(key);
+                    if (page != null) {
+                        forget(key, page);
+                        count++;
+                    }
+                }
+            }
+        }
+        purged.increment(count);
+    }
+
+    private Page render(String key, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long stamp = purges.get();
+        Dependencies dependencies = new Dependencies();
+        collect(request, dependencies);
+
+        TeeResponse tee = new TeeResponse(response, maxPageBytes);
+        filterChain.doFilter(request, tee);
+        tee.finish();
+
+        if (dependencies.tags.isEmpty() || dependencies.degraded || !tee.isCacheable()) {
+            return null;
+        }
+        Page page = new Page(tee.getContentType(), gzip(tee.captured()),
+                Set.copyOf(dependencies.tags), List.copyOf(dependencies.actions), System.currentTimeMillis());
+        if (purges.get() == stamp && page.size() <= maxBytes / 8) {
+            store(key, page);
+        }
+        return page;
+    }
+
+    private Page await(CompletableFuture<Page> leader) {
+        try {
+            return leader.get(coalesceTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Rendu de la première requête en échec ou trop long : rendu indépendant
+        }
+        return null;
+    }
+
+    /**
+     * Rejoue les actions d'une page servie sans rendu
+     */
+    static void runHitActions(List<HitAction> actions, HttpServletRequest request) {
+        for (HitAction action : actions) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                System.err.println("❌ Action de page en cache en échec pour " + request.getRequestURI() + " : " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Page page, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        runHitActions(page.actions, request);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(page.contentType);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (AcceptEncoding.accepts(acceptEncoding, "gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(page.gzip.length);
+            response.getOutputStream().write(page.gzip);
+        } else {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(page.gzip))) {
+                in.transferTo(response.getOutputStream());
+            }
+        }
+    }
+
+    private Page cached(String key) {
+        synchronized (pages) {
+            Page page = pages.get(key);
+            if (page != null && System.currentTimeMillis() - page.storedAt > ttlMs) {
+                pages.remove(key);
+                forget(key, page);
+                return null;
+            }
+            return page;
+        }
+    }
+
+    private void store(String key, Page page) {
+        synchronized (pages) {
+            Page previous = pages.put(key, page);
+            if (previous != null) {
+                forget(key, previous);
+            }
+            totalBytes += page.size();
+            for (String tag : page.tags) {
+                keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+            Iterator<Map.Entry<String, Page>> eldest = pages.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Page> entry = eldest.next();
+                eldest.remove();
+                forget(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Appelé sous le verrou de pages, une fois l'entrée retirée
+    private void forget(String key, Page page) {
+        totalBytes -= page.size();
+        for (String tag : page.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByTag.remove(tag);
+            }
+        }
+    }
+
+    private long currentBytes() {
+        synchronized (pages) {
+            return totalBytes;
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Contenus dont dépend une page et actions à rejouer quand elle est servie sans rendu
+     */
+    static final class Dependencies {
+        final Set<String> tags = new LinkedHashSet<>();
+        final List<HitAction> actions = new ArrayList<>();
+        // Valeur de repli rendue dans la page
+        volatile boolean degraded;
+    }
+
+    private record Page(String contentType, byte[] gzip, Set<String> tags, List<HitAction> actions, long storedAt) {
+        long size() {
+            return gzip.length;
+        }
+    }
+
+    /**
+     * Réponse qui écrit vers le client et en garde une copie : les pages rendues en flux
+     * continuent d'être envoyées par lots pendant la mise en cache
+     */
+    private static final class TeeResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private final int maxBytes;
+        private boolean overflow;
+        private boolean personal;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        TeeResponse(HttpServletResponse response, int maxBytes) {
+            super(response);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        capture(new byte[] { (byte) b }, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                        capture(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        target.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        // Les en-têtes posés après l'envoi du début de page sont ignorés par le client, mais restent pris en compte ici
+        @Override
+        public void setHeader(String name, String value) {
+            inspect(name, value);
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            inspect(name, value);
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            personal = true;
+            super.addCookie(cookie);
+        }
+
+        void finish() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        boolean isCacheable() {
+            String contentType = getContentType();
+            return getStatus() == HttpServletResponse.SC_OK && !overflow && !personal
+                    && contentType != null && contentType.startsWith("text/html");
+        }
+
+        byte[] captured() {
+            return copy.toByteArray();
+        }
+
+        private void inspect(String name, String value) {
+            if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(name)) {
+                personal = true;
+            } else if (HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(name) && value != null
+                    && (value.contains("no-store") || value.contains("private"))) {
+                personal = true;
+            }
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflow) {
+                return;
+            }
+            if (copy.size() + len > maxBytes) {
+                overflow = true;
+                copy.reset();
+                return;
+            }
+            copy.write(b, off, len);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.recipeapp.config;
 
+import com.example.recipeapp.service.TokenService;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
  * Configuration de sécurité temporaire pour les tests
@@ -14,13 +18,18 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http
             .authorizeHttpRequests(authz -> authz
+                // Les métriques révèlent charge et volumes : réservées aux administrateurs
+                .requestMatchers(EndpointRequest.to("metrics")).hasRole("ADMIN")
                 .anyRequest().permitAll()  // Autoriser tous les accès pour les tests
             )
-            .csrf(csrf -> csrf.disable());  // Désactiver CSRF pour les tests
-        
+            .csrf(csrf -> csrf.disable())  // Désactiver CSRF pour les tests
+            // Authentification par jeton signé, sans session serveur
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class);
+
         return http.build();
     }
 }
@@ -0,0 +1,128 @@
+package com.example.recipeapp.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sert les pages pré-rendues par StaticPageGenerator aux visiteurs anonymes, sans contrôleur ni template.
+ * Le fichier gzip est envoyé par sendfile quand Tomcat le permet, sinon par FileChannel.transferTo ;
+ * une page absente ou périmée passe au rendu dynamique.
+ * Les requêtes de pré-rendu du générateur sont reconnues ici et rendues normalement.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class StaticPageFilter extends OncePerRequestFilter {
+
+    private static final String PRERENDER = StaticPageFilter.class.getName() + ".prerender";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private StaticPageGenerator generator;
+
+    /**
+     * Indique une requête de pré-rendu : la page ne doit pas compter de vue
+     */
+    public static boolean isPrerender(HttpServletRequest request) {
+        return request.getAttribute(PRERENDER) != null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !generator.isEnabled() || !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PageCacheFilter.Dependencies dependencies =
+                generator.prerendering(request.getHeader(StaticPageGenerator.PRERENDER_HEADER));
+        if (dependencies != null) {
+            request.setAttribute(PRERENDER, Boolean.TRUE);
+            PageCacheFilter.collect(request, dependencies);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Pages personnalisées (jeton ou session) ou paramétrées
+        if (request.getHeader(HttpHeaders.AUTHORIZATION) != null || request.getSession(false) != null
+                || request.getQueryString() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        StaticPageGenerator.StaticPage page = generator.lookup(path);
+        if (page == null || !serve(page, request, response)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Envoie la page ; retourne false si son fichier a disparu avant l'envoi
+     */
+    private boolean serve(StaticPageGenerator.StaticPage page, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = AcceptEncoding.accepts(acceptEncoding, "gzip");
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(page.file(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        try (channel) {
+            PageCacheFilter.runHitActions(page.actions(), request);
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(page.contentType());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (!gzip) {
+                try (InputStream in = new GZIPInputStream(Channels.newInputStream(channel))) {
+                    in.transferTo(response.getOutputStream());
+                }
+                return true;
+            }
+
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLengthLong(page.size());
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // Tomcat envoie le fichier lui-même (sendfile) une fois le filtre terminé
+                request.setAttribute(SENDFILE_FILENAME, page.file().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, page.size());
+                return true;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < page.size()) {
+                position += channel.transferTo(position, page.size() - position, out);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.model.Category;
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.service.CategoryService;
+import com.example.recipeapp.service.ContentChangedEvent;
+import com.example.recipeapp.service.RecipeService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pré-rendu sur disque, en gzip, des pages de catégorie et des recettes les plus vues.
+ * Chaque page est rendue par une requête locale (mêmes contrôleurs et templates que le rendu dynamique),
+ * puis régénérée en tâche de fond dès qu'un ContentChangedEvent touche l'un de ses contenus ;
+ * entre-temps, StaticPageFilter laisse le rendu dynamique répondre. Une page plus ancienne que max-age-ms
+ * (compteurs, écritures des autres instances) est régénérée au rafraîchissement suivant, en restant servie.
+ */
+@Component
+public class StaticPageGenerator {
+
+    static final String PRERENDER_HEADER = "X-Prerender-Id";
+
+    // Délai avant suppression d'un fichier remplacé : un envoi en cours peut encore le lire
+    private static final long RETIRED_FILE_TTL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Value("${recipe-app.static-pages.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recipe-app.static-pages.directory:}")
+    private String directoryName;
+
+    @Value("${recipe-app.static-pages.recipes:200}")
+    private int recipeCount;
+
+    @Value("${recipe-app.static-pages.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private Path directory;
+    private volatile int port = -1;
+    private HttpClient client;
+    private ExecutorService worker;
+
+    private final ConcurrentHashMap<String, StaticPage> pages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> pathsByTag = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PageCacheFilter.Dependencies> prerendering = new ConcurrentHashMap<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final ArrayDeque<RetiredFile> retired = new ArrayDeque<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    // Incrémenté à chaque écriture : une page rendue pendant une écriture est régénérée
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = directoryName.isBlank()
+                    ? Files.createTempDirectory("recipe-app-pages")
+                    : Files.createDirectories(Path.of(directoryName));
+            // Fichiers d'une exécution précédente : leurs versions ne sont plus connues
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".html.gz")).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Répertoire des pages pré-rendues indisponible, pré-rendu désactivé : " + e.getMessage());
+            enabled = false;
+            return;
+        }
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "static-pages");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        // Serveur principal uniquement (pas celui d'administration)
+        if (event.getApplicationContext().getServerNamespace() == null) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Page pré-rendue à jour pour ce chemin, ou null
+     */
+    StaticPage lookup(String path) {
+        return pages.get(path);
+    }
+
+    /**
+     * Dépendances à collecter pour un pré-rendu en cours, ou null si l'identifiant est inconnu
+     */
+    PageCacheFilter.Dependencies prerendering(String id) {
+        return id == null ? null : prerendering.get(id);
+    }
+
+    /**
+     * Sélectionne les pages à pré-rendre (catégories actives, recettes les plus vues)
+     * et génère celles qui manquent ou ont dépassé leur âge maximal
+     */
+    @Scheduled(initialDelayString = "${recipe-app.static-pages.initial-delay-ms:30000}",
+               fixedDelayString = "${recipe-app.static-pages.refresh-interval-ms:600000}")
+    public void refresh() {
+        if (!enabled || port < 0) {
+            return;
+        }
+        deleteRetiredFiles();
+
+        Set<String> selected = new LinkedHashSet<>();
+        try {
+            for (Category category : categoryService.findAllActive()) {
+                selected.add("/categories/" + category.getId());
+            }
+            for (Recipe recipe : recipeService.findMostViewed(recipeCount)) {
+                selected.add("/recipes/" + recipe.getId());
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Sélection des pages à pré-rendre impossible : " + e.getMessage());
+            return;
+        }
+
+        for (String path : List.copyOf(pages.keySet())) {
+            if (!selected.contains(path)) {
+                drop(path);
+            }
+        }
+        long now = System.nanoTime();
+        long maxAgeNanos = Duration.ofMillis(maxAgeMs).toNanos();
+        for (String path : selected) {
+            StaticPage page = pages.get(path);
+            if (page == null || now - page.generatedAt() >= maxAgeNanos) {
+                schedule(path);
+            }
+        }
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        for (String tag : event.getTags()) {
+            Set<String> paths = pathsByTag.get(tag);
+            if (paths == null) {
+                continue;
+            }
+            for (String path : List.copyOf(paths)) {
+                // Page périmée : rendu dynamique jusqu'à la régénération
+                drop(path);
+                schedule(path);
+            }
+        }
+    }
+
+    private void schedule(String path) {
+        if (queued.add(path)) {
+            worker.execute(() -> {
+                queued.remove(path);
+                generate(path);
+            });
+        }
+    }
+
+    private void generate(String path) {
+        deleteRetiredFiles();
+        long stamp = invalidations.get();
+        String id = UUID.randomUUID().toString();
+        PageCacheFilter.Dependencies dependencies = new PageCacheFilter.Dependencies();
+        prerendering.put(id, dependencies);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + contextPath + path))
+                    .header(PRERENDER_HEADER, id)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "identity")
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            String contentType = response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse("");
+            if (response.statusCode() != 200 || !contentType.startsWith("text/html")
+                    || dependencies.tags.isEmpty() || dependencies.degraded) {
+                drop(path);
+                return;
+            }
+
+            Path file = write(path, response.body());
+            if (invalidations.get() != stamp) {
+                // Écriture pendant le rendu : la page est peut-être déjà périmée
+                retire(file);
+                schedule(path);
+                return;
+            }
+            publish(path, new StaticPage(file, Files.size(file), contentType,
+                    Set.copyOf(dependencies.tags), List.copyOf(dependencies.actions), System.nanoTime()));
+        } catch (IOException e) {
+            System.err.println("❌ Pré-rendu de " + path + " impossible : " + e.getMessage());
+            drop(path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            prerendering.remove(id);
+        }
+    }
+
+    private Path write(String path, byte[] html) throws IOException {
+        // Un nom par génération : un fichier en cours d'envoi n'est jamais réécrit
+        String name = path.substring(1).replaceAll("[^A-Za-z0-9_-]", "_") + "-" + generation.incrementAndGet() + ".html.gz";
+        Path file = directory.resolve(name);
+        Path temporary = directory.resolve(name + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+            out.write(html);
+        }
+        return Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void publish(String path, StaticPage page) {
+        StaticPage previous = pages.put(path, page);
+        if (previous != null) {
+            forget(path, previous);
+        }
+        for (String tag : page.tags()) {
+            pathsByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(path);
+        }
+    }
+
+    private void drop(String path) {
+        StaticPage page = pages.remove(path);
+        if (page != null) {
+            forget(path, page);
+        }
+    }
+
+    private void forget(String path, StaticPage page) {
+        for (String tag : page.tags()) {
+            Set<String> paths = pathsByTag.get(tag);
+            if (paths != null) {
+                paths.remove(path);
+            }
+        }
+        retire(page.file());
+    }
+
+    private void retire(Path file) {
+        synchronized (retired) {
+            retired.add(new RetiredFile(file, System.nanoTime() + RETIRED_FILE_TTL_NANOS));
+        }
+    }
+
+    private void deleteRetiredFiles() {
+        long now = System.nanoTime();
+        synchronized (retired) {
+            while (!retired.isEmpty() && now - retired.peek().deleteAt() >= 0) {
+                try {
+                    Files.deleteIfExists(retired.poll().file());
+                } catch (IOException e) {
+                    System.err.println("❌ Suppression d'une page pré-rendue impossible : " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Page pré-rendue : fichier gzip, type de contenu, dépendances, actions à rejouer à chaque envoi et date de rendu
+     */
+    record StaticPage(Path file, long size, String contentType, Set<String> tags,
+                      List<PageCacheFilter.HitAction> actions, long generatedAt) {
+    }
+
+    private record RetiredFile(Path file, long deleteAt) {
+    }
+}
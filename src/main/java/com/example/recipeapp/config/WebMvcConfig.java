@@ -0,0 +1,92 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.controller.LazyModel;
+import com.example.recipeapp.service.CatalogBundleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration Spring MVC : journal des durées des attributs paresseux du modèle,
+ * fichiers des bundles du catalogue servis en ressources statiques (requêtes Range comprises),
+ * formats binaires de l'API (Smile, CBOR) encodés avec la configuration Jackson de l'application,
+ * exécuteur borné des réponses asynchrones (Flux, Mono, SSE)
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private LazyModel lazyModel;
+
+    @Autowired
+    private CatalogBundleService catalogBundleService;
+
+    @Autowired
+    private ApiFormats apiFormats;
+
+    @Value("${recipe-app.mvc-async.threads:16}")
+    private int asyncThreads;
+
+    @Value("${recipe-app.mvc-async.queue-capacity:${server.tomcat.max-connections:8192}}")
+    private int asyncQueueCapacity;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(lazyModel);
+    }
+
+    /**
+     * Threads qui écrivent les éléments des réponses réactives : l'écriture vers le client est bloquante,
+     * un client lent occupe un thread pendant son envoi. Chaque réponse ouverte a au plus une tâche
+     * en attente, et une tâche refusée termine la réponse (ReactiveTypeHandler) : la file est donc
+     * dimensionnée au plafond des connexions (server.tomcat.max-connections). Jusqu'à ce plafond,
+     * un changement diffusé à tous les abonnés SSE à la fois n'en déconnecte aucun ; au-delà, Tomcat
+     * n'accepte plus de connexion.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Remplace les convertisseurs binaires par défaut, après JSON : JSON reste choisi pour Accept: */*
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                || converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.addAll(apiFormats.binaryConverters());
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        if (catalogBundleService.isEnabled()) {
+            // Nom de fichier dérivé du contenu : un bundle publié ne change jamais
+            registry.addResourceHandler(CatalogBundleService.URL_PREFIX + "**")
+                    .addResourceLocations(catalogBundleService.getDirectory().toUri().toString())
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+        }
+    }
+}
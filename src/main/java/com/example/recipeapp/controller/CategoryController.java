@@ -1,14 +1,20 @@
 package com.example.recipeapp.controller;
 
+import com.example.recipeapp.config.PageCacheFilter;
 import com.example.recipeapp.model.Category;
 import com.example.recipeapp.service.CategoryService;
+import com.example.recipeapp.service.ContentChangedEvent;
 import com.example.recipeapp.service.RecipeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
 import java.util.Optional;
 
@@ -25,20 +31,27 @@ public class CategoryController {
     @Autowired
     private RecipeService recipeService;
 
+    @Value("${recipe-app.streaming.flush-every:20}")
+    private int flushEvery;
+
     /**
      * Détail d'une catégorie
      */
     @GetMapping("/{id}")
-    public String categoryDetail(@PathVariable String id, Model model) {
+    public String categoryDetail(@PathVariable String id, Model model,
+                                 HttpServletRequest request, HttpServletResponse response) {
         try {
             Optional<Category> category = categoryService.findById(id);
             
             if (category.isPresent()) {
                 model.addAttribute("category", category.get());
                 model.addAttribute("title", category.get().getName());
+                PageCacheFilter.tag(request, ContentChangedEvent.categoryTag(id));
                 
-                // Charger les recettes de cette catégorie
-                model.addAttribute("recipes", recipeService.findByCategoryId(id));
+                // Recettes de cette catégorie rendues en flux : la page n'est pas mise en tampon pour l'ETag
+                ShallowEtagHeaderFilter.disableContentCaching(request);
+                model.addAttribute("recipeCount", recipeService.countByCategoryId(id));
+                model.addAttribute("recipes", new ChunkedRows<>(recipeService.streamByCategoryId(id), response, flushEvery));
                 
                 return "categories/detail";
             } else {
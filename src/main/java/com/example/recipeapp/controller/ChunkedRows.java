@@ -0,0 +1,99 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.config.PageCacheFilter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lignes d'une liste rendue au fil de l'eau par Thymeleaf (th:each sur cet objet).
+ * La réponse est vidée avant la première lecture, pour que l'en-tête et la mise en page partent
+ * immédiatement, puis tous les batchSize éléments ; seule la page Firestore courante est en mémoire.
+ * Une erreur de lecture en cours de rendu termine la liste : le template l'affiche via isFailed(),
+ * et la page incomplète est marquée no-store pour ne pas être mise en cache.
+ */
+public class ChunkedRows<T> implements Iterable<T> {
+
+    private final Iterable<T> source;
+    private final HttpServletResponse response;
+    private final int batchSize;
+    private int count;
+    private boolean failed;
+
+    public ChunkedRows(Iterable<T> source, HttpServletResponse response, int batchSize) {
+        this.source = source;
+        this.response = response;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        flush();
+        Iterator<T> rows = source.iterator();
+        return new Iterator<>() {
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (done) {
+                    return false;
+                }
+                try {
+                    if (rows.hasNext()) {
+                        return true;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Rendu de la liste interrompu : " + e.getMessage());
+                    failed = true;
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+                    if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                        PageCacheFilter.doNotCache(attributes.getRequest());
+                    }
+                }
+                done = true;
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T row = rows.next();
+                count++;
+                if (count % batchSize == 0) {
+                    flush();
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Nombre de lignes rendues (définitif une fois la boucle terminée)
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    private void flush() {
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            // Client déconnecté : le rendu s'arrêtera à la prochaine écriture
+        }
+    }
+}
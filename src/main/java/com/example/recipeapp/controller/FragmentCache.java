@@ -0,0 +1,171 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.model.Category;
+import com.example.recipeapp.model.Recipe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.ServletContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache du HTML des cartes de recette et des tuiles de catégorie, inséré tel quel dans les pages
+ * (th:utext="${@fragmentCache.recipeCard('list', recipe)}").
+ * Une entrée est propre à un fragment, un document et une langue ; elle n'est servie que pour la
+ * version exacte du document et remplacée dès qu'il change. Le cache est borné en octets (LRU).
+ * Le compteur de vues ne change pas la version : il est inséré à chaque rendu dans le HTML en cache.
+ */
+@Component("fragmentCache")
+public class FragmentCache {
+
+    private static final String RECIPE_CARDS = "fragments/recipe-cards";
+    private static final String CATEGORY_TILES = "fragments/category-tiles";
+    // Emplacement du compteur de vues dans le HTML en cache (inchangé par l'échappement HTML)
+    private static final String VIEW_COUNT_SLOT = "{{viewCount}}";
+
+    @Autowired
+    private ITemplateEngine templateEngine;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ServletContext servletContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.fragment-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private JakartaServletWebApplication application;
+    private Counter hits;
+    private Counter misses;
+    private Counter savedSeconds;
+
+    @PostConstruct
+    void init() {
+        application = JakartaServletWebApplication.buildApplication(servletContext);
+        hits = Counter.builder("fragment.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("fragment.cache.requests").tag("result", "miss").register(meterRegistry);
+        // Durée de rendu économisée : celle du rendu initial, comptée à chaque réutilisation
+        savedSeconds = Counter.builder("fragment.cache.render.saved")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("fragment.cache.bytes", this, cache -> cache.currentBytes()).register(meterRegistry);
+    }
+
+    /**
+     * HTML d'une carte de recette (fragment de fragments/recipe-cards.html)
+     */
+    public String recipeCard(String fragment, Recipe recipe) {
+        String html = render(RECIPE_CARDS, fragment, "recipe", recipe, recipe.getId(), recipe.getVersion());
+        Integer viewCount = recipe.getViewCount();
+        return html.replace(VIEW_COUNT_SLOT, String.valueOf(viewCount == null ? 0 : viewCount));
+    }
+
+    /**
+     * HTML d'une tuile de catégorie (fragments/category-tiles.html)
+     */
+    public String categoryTile(Category category) {
+        return render(CATEGORY_TILES, "tile", "category", category, category.getId(), category.getVersion());
+    }
+
+    private String render(String template, String fragment, String variable, Object value, String id, String version) {
+        Locale locale = LocaleContextHolder.getLocale();
+        if (id == null || version == null) {
+            return process(template, fragment, variable, value, locale);
+        }
+
+        String key = template + "::" + fragment + ":" + id + ":" + locale.toLanguageTag();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version.equals(version)) {
+                hits.increment();
+                savedSeconds.increment(entry.renderNanos / 1e9);
+                return entry.html;
+            }
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        String html = process(template, fragment, variable, value, locale);
+        Entry entry = new Entry(version, html, System.nanoTime() - start);
+        if (entry.size() <= maxBytes / 8) {
+            put(key, entry);
+        }
+        return html;
+    }
+
+    private String process(String template, String fragment, String variable, Object value, Locale locale) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(variable, value);
+        variables.put("viewCountSlot", VIEW_COUNT_SLOT);
+        variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+
+        // Contexte web de la requête en cours, pour résoudre les liens @{...}
+        IContext context;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet && servlet.getResponse() != null) {
+            context = new WebContext(application.buildExchange(servlet.getRequest(), servlet.getResponse()), locale, variables);
+        } else {
+            context = new Context(locale, variables);
+        }
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (entries) {
+            // Remplace l'ancienne version du même fragment
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += entry.size();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    private long currentBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private record Entry(String version, String html, long renderNanos) {
+        long size() {
+            // Deux octets par caractère, plus la version
+            return 2L * (html.length() + version.length());
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.recipeapp.controller;
 
+import com.example.recipeapp.config.PageCacheFilter;
 import com.example.recipeapp.service.CategoryService;
+import com.example.recipeapp.service.ContentChangedEvent;
 import com.example.recipeapp.service.RecipeService;
 import com.example.recipeapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.List;
+
 @Controller
 public class HomeController {
 
@@ -20,36 +27,42 @@ public class HomeController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LazyModel lazyModel;
+
+    @Value("${recipe-app.streaming.flush-every:20}")
+    private int flushEvery;
+
+    /**
+     * Page d'accueil : les statistiques et les dernières recettes sont lues en parallèle,
+     * les autres attributs seulement si le template les affiche
+     */
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(Model model, HttpServletRequest request) {
         model.addAttribute("message", "Bienvenue sur Recipe App!");
+        PageCacheFilter.tag(request, ContentChangedEvent.LATEST);
         
-        try {
-            // Ajouter quelques statistiques pour la page d'accueil
-            model.addAttribute("totalRecipes", recipeService.countPublished());
-            model.addAttribute("totalCategories", categoryService.countActive());
-            model.addAttribute("totalUsers", userService.count());
-            
-            // Ajouter les recettes les plus récentes
-            model.addAttribute("latestRecipes", recipeService.findLatest(6));
-            model.addAttribute("topRatedRecipes", recipeService.findTopRated(3));
-        } catch (Exception e) {
-            // En cas d'erreur Firestore, on continue avec des valeurs par défaut
-            model.addAttribute("totalRecipes", 0);
-            model.addAttribute("totalCategories", 0);
-            model.addAttribute("totalUsers", 0);
-            model.addAttribute("firestoreError", true);
-        }
+        LazyModel.Attributes attributes = lazyModel.attributes(model, request);
+        attributes.prefetch("totalRecipes", recipeService::countPublished, 0L);
+        attributes.prefetch("totalCategories", categoryService::countActive, 0L);
+        attributes.prefetch("totalUsers", userService::count, 0L);
+        attributes.prefetch("latestRecipes", () -> recipeService.findLatest(6), List.of());
+        attributes.lazy("topRatedRecipes", () -> recipeService.findTopRated(3), List.of());
+        // En cas d'erreur Firestore, la page s'affiche avec des valeurs par défaut
+        attributes.lazy("firestoreError", () -> attributes.failed("totalRecipes", "totalCategories", "totalUsers"), true);
         
         return "index";
     }
 
+    /**
+     * Liste des recettes, rendue en flux : les lignes sont lues et envoyées par lots
+     */
     @GetMapping("/recipes")
-    public String recipes(Model model) {
+    public String recipes(Model model, HttpServletResponse response) {
         model.addAttribute("title", "Liste des Recettes");
         
         try {
-            model.addAttribute("recipes", recipeService.findAllPublished());
+            model.addAttribute("recipes", new ChunkedRows<>(recipeService.streamPublished(), response, flushEvery));
             model.addAttribute("categories", categoryService.findAllActive());
         } catch (Exception e) {
             model.addAttribute("error", "Erreur lors du chargement des recettes: " + e.getMessage());
@@ -71,12 +84,15 @@ public class HomeController {
         return "categories/list";
     }
 
+    /**
+     * Liste des utilisateurs, rendue en flux : les lignes sont lues et envoyées par lots
+     */
     @GetMapping("/users")
-    public String users(Model model) {
+    public String users(Model model, HttpServletResponse response) {
         model.addAttribute("title", "Liste des Utilisateurs");
         
         try {
-            model.addAttribute("users", userService.findAllActive());
+            model.addAttribute("users", new ChunkedRows<>(userService.streamActive(), response, flushEvery));
         } catch (Exception e) {
             model.addAttribute("error", "Erreur lors du chargement des utilisateurs: " + e.getMessage());
         }
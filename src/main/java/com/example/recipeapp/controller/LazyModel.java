@@ -0,0 +1,229 @@
+package com.example.recipeapp.controller;
+
+import com.example.recipeapp.config.ExecutionMode;
+import com.example.recipeapp.config.PageCacheFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.ui.Model;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.thymeleaf.context.LazyContextVariable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Attributs de modèle résolus à la demande par le template (LazyContextVariable de Thymeleaf) :
+ * une requête n'est exécutée que si le template évalue l'attribut, et une seule fois.
+ * prefetch() lance dès le contrôleur, en parallèle, la lecture des attributs certainement affichés ;
+ * si le pool est saturé, l'attribut est lu par le thread de la requête quand le template l'évalue.
+ * La durée de chaque attribut est journalisée à la fin de la requête si log-timings est activé.
+ */
+@Component
+public class LazyModel implements HandlerInterceptor {
+
+    private static final String ATTRIBUTES = LazyModel.class.getName() + ".attributes";
+
+    /**
+     * Lecture d'un attribut
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws ExecutionException, InterruptedException;
+    }
+
+    @Autowired
+    private ExecutionMode executionMode;
+
+    @Value("${recipe-app.model-prefetch.threads:8}")
+    private int threads;
+
+    @Value("${recipe-app.model-prefetch.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${recipe-app.model-prefetch.log-timings:false}")
+    private boolean logTimings;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        // En mode virtual, un thread virtuel par lecture : threads et queue-capacity ne s'appliquent qu'au pool système
+        executor = executionMode.newExecutor("model-prefetch", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Attributs paresseux de la requête courante, ajoutés au modèle donné
+     */
+    public Attributes attributes(Model model, HttpServletRequest request) {
+        Attributes attributes = new Attributes(model, request);
+        request.setAttribute(ATTRIBUTES, attributes);
+        return attributes;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object attributes = request.getAttribute(ATTRIBUTES);
+        if (logTimings && attributes instanceof Attributes lazy && !lazy.attributes.isEmpty()) {
+            System.out.println("⏱️ " + request.getMethod() + " " + request.getRequestURI() + " : " + lazy.summary());
+        }
+    }
+
+    /**
+     * Attributs paresseux d'une requête ; en cas d'échec, la valeur de repli est rendue
+     * (la réponse peut déjà être partiellement envoyée quand le template évalue l'attribut)
+     */
+    public final class Attributes {
+        private final Model model;
+        private final HttpServletRequest request;
+        private final Map<String, Attribute<?>> attributes = new LinkedHashMap<>();
+
+        private Attributes(Model model, HttpServletRequest request) {
+            this.model = model;
+            this.request = request;
+        }
+
+        /**
+         * Attribut lu seulement si le template l'évalue
+         */
+        public <T> void lazy(String name, Loader<T> loader, T fallback) {
+            register(name, new Attribute<>(loader, fallback, null));
+        }
+
+        /**
+         * Attribut lu immédiatement en parallèle ; le template attend le résultat s'il n'est pas prêt
+         */
+        public <T> void prefetch(String name, Loader<T> loader, T fallback) {
+            Attribute<T> attribute = new Attribute<>(loader, fallback, "préchargé");
+            try {
+                attribute.future = executor.submit(attribute::load);
+            } catch (RejectedExecutionException e) {
+                // Pool saturé : lecture par le thread de la requête, à l'évaluation
+                attribute.mode = "saturé";
+            }
+            register(name, attribute);
+        }
+
+        /**
+         * Résout les attributs donnés et indique si l'un d'eux a échoué
+         */
+        public boolean failed(String... names) {
+            boolean failed = false;
+            for (String name : names) {
+                Attribute<?> attribute = attributes.get(name);
+                if (attribute != null) {
+                    attribute.resolve();
+                    failed |= attribute.failed;
+                    if (attribute.failed) {
+                        PageCacheFilter.doNotCache(request);
+                    }
+                }
+            }
+            return failed;
+        }
+
+        private <T> void register(String name, Attribute<T> attribute) {
+            attributes.put(name, attribute);
+            model.addAttribute(name, new LazyContextVariable<T>() {
+                @Override
+                protected T loadValue() {
+                    T value = attribute.resolve();
+                    if (attribute.failed) {
+                        // Page rendue avec une valeur de repli : pas de mise en cache
+                        PageCacheFilter.doNotCache(request);
+                    }
+                    return value;
+                }
+            });
+        }
+
+        private String summary() {
+            List<String> parts = new ArrayList<>();
+            attributes.forEach((name, attribute) -> parts.add(name + " " + attribute.describe()));
+            return String.join(", ", parts);
+        }
+    }
+
+    private static final class Attribute<T> {
+        private final Loader<T> loader;
+        private final T fallback;
+        private String mode;
+        private Future<T> future;
+        private volatile long nanos = -1;
+        private volatile boolean failed;
+        // Verrou explicite plutôt que synchronized : un thread virtuel en attente de Firestore libère son porteur
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean resolved;
+        private T value;
+
+        Attribute(Loader<T> loader, T fallback, String mode) {
+            this.loader = loader;
+            this.fallback = fallback;
+            this.mode = mode;
+        }
+
+        T load() {
+            long start = System.nanoTime();
+            try {
+                return loader.load();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed = true;
+            } catch (ExecutionException | RuntimeException e) {
+                System.err.println("❌ Chargement d'un attribut du modèle impossible : " + e.getMessage());
+                failed = true;
+            } finally {
+                nanos = System.nanoTime() - start;
+            }
+            return fallback;
+        }
+
+        T resolve() {
+            lock.lock();
+            try {
+                if (!resolved) {
+                    value = future == null ? load() : join();
+                    resolved = true;
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private T join() {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("❌ Préchargement d'un attribut du modèle impossible : " + e.getMessage());
+            }
+            failed = true;
+            return fallback;
+        }
+
+        String describe() {
+            String timing = nanos < 0 ? "non évalué" : TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+            String status = failed ? " échec" : "";
+            return mode == null ? timing + status : timing + status + " (" + mode + ")";
+        }
+    }
+}
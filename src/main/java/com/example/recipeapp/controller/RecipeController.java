@@ -1,10 +1,16 @@
 package com.example.recipeapp.controller;
 
+import com.example.recipeapp.config.PageCacheFilter;
+import com.example.recipeapp.config.StaticPageFilter;
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.service.ContentChangedEvent;
 import com.example.recipeapp.service.RecipeService;
 import com.example.recipeapp.service.CategoryService;
 import com.example.recipeapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +18,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -30,32 +37,46 @@ public class RecipeController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LazyModel lazyModel;
+
+    @Value("${recipe-app.streaming.flush-every:20}")
+    private int flushEvery;
+
     /**
      * Détail d'une recette
+     * La catégorie et l'auteur sont lus en parallèle, les recettes similaires seulement si le template les affiche
      */
     @GetMapping("/{id}")
-    public String recipeDetail(@PathVariable String id, Model model) {
+    public String recipeDetail(@PathVariable String id, Model model, HttpServletRequest request) {
         try {
-            Optional<Recipe> recipe = recipeService.findByIdAndIncrementViews(id);
+            // Le pré-rendu statique ne compte pas de vue : chaque envoi du fichier la comptera
+            Optional<Recipe> recipe = StaticPageFilter.isPrerender(request)
+                ? recipeService.findById(id)
+                : recipeService.findByIdAndIncrementViews(id);
             
             if (recipe.isPresent()) {
                 model.addAttribute("recipe", recipe.get());
                 
-                // Charger les informations de la catégorie
-                categoryService.findById(recipe.get().getCategoryId())
-                    .ifPresent(category -> model.addAttribute("category", category));
+                Recipe found = recipe.get();
+                PageCacheFilter.tag(request,
+                    ContentChangedEvent.recipeTag(id),
+                    ContentChangedEvent.categoryTag(found.getCategoryId()),
+                    ContentChangedEvent.userTag(found.getAuthorId()));
+                // Servie depuis le cache ou pré-rendue, la page compte quand même la vue
+                PageCacheFilter.onHit(request, () -> recipeService.recordView(id));
                 
-                // Charger les informations de l'auteur
-                userService.findById(recipe.get().getAuthorId())
-                    .ifPresent(author -> model.addAttribute("author", author));
+                LazyModel.Attributes attributes = lazyModel.attributes(model, request);
+                attributes.prefetch("category", () -> categoryService.findById(found.getCategoryId()).orElse(null), null);
+                attributes.prefetch("author", () -> userService.findById(found.getAuthorId()).orElse(null), null);
                 
-                // Charger des recettes similaires (même catégorie)
-                model.addAttribute("similarRecipes", 
-                    recipeService.findByCategoryId(recipe.get().getCategoryId())
+                // Recettes similaires (même catégorie)
+                attributes.lazy("similarRecipes", () ->
+                    recipeService.findByCategoryId(found.getCategoryId())
                         .stream()
                         .filter(r -> !r.getId().equals(id))
                         .limit(3)
-                        .toList());
+                        .toList(), List.of());
                 
                 return "recipes/detail";
             } else {
@@ -72,9 +93,9 @@ public class RecipeController {
      * Recettes par catégorie
      */
     @GetMapping("/category/{categoryId}")
-    public String recipesByCategory(@PathVariable String categoryId, Model model) {
+    public String recipesByCategory(@PathVariable String categoryId, Model model, HttpServletResponse response) {
         try {
-            model.addAttribute("recipes", recipeService.findByCategoryId(categoryId));
+            model.addAttribute("recipes", new ChunkedRows<>(recipeService.streamByCategoryId(categoryId), response, flushEvery));
             
             categoryService.findById(categoryId)
                 .ifPresent(category -> {
@@ -93,9 +114,9 @@ public class RecipeController {
      * Recettes par auteur
      */
     @GetMapping("/author/{authorId}")
-    public String recipesByAuthor(@PathVariable String authorId, Model model) {
+    public String recipesByAuthor(@PathVariable String authorId, Model model, HttpServletResponse response) {
         try {
-            model.addAttribute("recipes", recipeService.findPublishedByAuthorId(authorId));
+            model.addAttribute("recipes", rows(recipeService.findPublishedByAuthorId(authorId), response));
             
             userService.findById(authorId)
                 .ifPresent(author -> {
@@ -133,10 +154,10 @@ public class RecipeController {
      * Recettes par difficulté
      */
     @GetMapping("/difficulty/{difficulty}")
-    public String recipesByDifficulty(@PathVariable String difficulty, Model model) {
+    public String recipesByDifficulty(@PathVariable String difficulty, Model model, HttpServletResponse response) {
         try {
             Recipe.DifficultyLevel level = Recipe.DifficultyLevel.valueOf(difficulty.toUpperCase());
-            model.addAttribute("recipes", recipeService.findByDifficulty(level));
+            model.addAttribute("recipes", rows(recipeService.findByDifficulty(level), response));
             model.addAttribute("title", "Recettes " + level.getDisplayName());
             model.addAttribute("difficulty", level);
             
@@ -154,9 +175,9 @@ public class RecipeController {
      * Top des recettes les mieux notées
      */
     @GetMapping("/top-rated")
-    public String topRatedRecipes(Model model) {
+    public String topRatedRecipes(Model model, HttpServletResponse response) {
         try {
-            model.addAttribute("recipes", recipeService.findTopRated(20));
+            model.addAttribute("recipes", rows(recipeService.findTopRated(20), response));
             model.addAttribute("title", "Top des recettes les mieux notées");
             return "recipes/list";
         } catch (Exception e) {
@@ -169,9 +190,9 @@ public class RecipeController {
      * Recettes les plus récentes
      */
     @GetMapping("/latest")
-    public String latestRecipes(Model model) {
+    public String latestRecipes(Model model, HttpServletResponse response) {
         try {
-            model.addAttribute("recipes", recipeService.findLatest(20));
+            model.addAttribute("recipes", rows(recipeService.findLatest(20), response));
             model.addAttribute("title", "Recettes les plus récentes");
             return "recipes/list";
         } catch (Exception e) {
@@ -179,4 +200,11 @@ public class RecipeController {
             return "recipes/list";
         }
     }
+
+    /**
+     * Liste déjà chargée, rendue par le même template que les listes en flux
+     */
+    private ChunkedRows<Recipe> rows(List<Recipe> recipes, HttpServletResponse response) {
+        return new ChunkedRows<>(recipes, response, flushEvery);
+    }
 }
@@ -3,6 +3,7 @@ package com.example.recipeapp.controller;
 import com.example.recipeapp.model.User;
 import com.example.recipeapp.service.UserService;
 import com.example.recipeapp.service.RecipeService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,11 +27,15 @@ public class UserController {
     @Autowired
     private RecipeService recipeService;
 
+    @Autowired
+    private LazyModel lazyModel;
+
     /**
      * Détail d'un utilisateur
+     * Ses recettes publiées sont lues en parallèle, le total seulement si le template l'affiche
      */
     @GetMapping("/{id}")
-    public String userDetail(@PathVariable String id, Model model) {
+    public String userDetail(@PathVariable String id, Model model, HttpServletRequest request) {
         try {
             Optional<User> user = userService.findById(id);
             
@@ -38,11 +44,11 @@ public class UserController {
                 model.addAttribute("user", userObj);
                 model.addAttribute("title", "Profil de " + userObj.getFullName());
                 
-                // Charger les recettes de cet utilisateur
-                model.addAttribute("userRecipes", recipeService.findPublishedByAuthorId(id));
+                LazyModel.Attributes attributes = lazyModel.attributes(model, request);
+                attributes.prefetch("userRecipes", () -> recipeService.findPublishedByAuthorId(id), List.of());
                 
-                // Compter le nombre total de recettes (y compris non publiées)
-                model.addAttribute("totalRecipes", recipeService.findByAuthorId(id).size());
+                // Nombre total de recettes (y compris non publiées), compté côté serveur
+                attributes.lazy("totalRecipes", () -> recipeService.countByAuthorId(id), 0L);
                 
                 return "users/detail";
             } else {
@@ -0,0 +1,41 @@
+package com.example.recipeapp.controller.api;
+
+import com.example.recipeapp.service.CatalogBundle;
+import com.example.recipeapp.service.CatalogBundleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * API du catalogue complet hors ligne
+ */
+@RestController
+@RequestMapping("/api/catalog")
+@CrossOrigin(origins = "*")
+public class CatalogApiController {
+
+    @Autowired
+    private CatalogBundleService catalogBundleService;
+
+    /**
+     * Index du dernier bundle du catalogue ; l'ETag est l'empreinte du contenu, un client à jour reçoit 304.
+     * Le bundle se télécharge ensuite à son URL (en entier ou partie par partie), puis se complète
+     * par /api/recipes/changes à partir de son jeton. L'URL n'est valable que sur l'instance qui a répondu.
+     */
+    @GetMapping("/bundle")
+    public ResponseEntity<CatalogBundle> getBundle() {
+        CatalogBundle bundle = catalogBundleService.current();
+        if (bundle == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(bundle.hash())
+                .cacheControl(CacheControl.noCache())
+                .body(bundle);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -28,7 +29,7 @@ public class CategoryApiController {
     public ResponseEntity<List<Category>> getAllCategories() {
         try {
             List<Category> categories = categoryService.findAllActive();
-            return ResponseEntity.ok(categories);
+            return ConditionalResponses.okList(categories, Category::getId, Category::getVersion);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -38,10 +39,16 @@ public class CategoryApiController {
      * Récupère une catégorie par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable String id) {
+    public ResponseEntity<Category> getCategoryById(@PathVariable String id, WebRequest request) {
         try {
+            ResponseEntity<Category> notModified = ConditionalResponses.notModified(request,
+                    categoryService.findCachedVersion(id).orElse(null));
+            if (notModified != null) {
+                return notModified;
+            }
+
             Optional<Category> category = categoryService.findById(id);
-            return category.map(ResponseEntity::ok)
+            return category.map(c -> ConditionalResponses.ok(c, c.getVersion()))
                           .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -55,7 +62,7 @@ public class CategoryApiController {
     public ResponseEntity<Category> getCategoryBySlug(@PathVariable String slug) {
         try {
             Optional<Category> category = categoryService.findBySlug(slug);
-            return category.map(ResponseEntity::ok)
+            return category.map(c -> ConditionalResponses.ok(c, c.getVersion()))
                           .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -119,7 +126,7 @@ public class CategoryApiController {
     public ResponseEntity<List<Category>> searchCategories(@RequestParam String q) {
         try {
             List<Category> categories = categoryService.searchByName(q);
-            return ResponseEntity.ok(categories);
+            return ConditionalResponses.okList(categories, Category::getId, Category::getVersion);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
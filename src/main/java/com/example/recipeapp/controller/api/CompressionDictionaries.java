@@ -0,0 +1,226 @@
+package com.example.recipeapp.controller.api;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dictionnaires de compression des réponses JSON (Deflater.setDictionary), entraînés sur des réponses réelles.
+ * Les noms de champs, unités, vocabulaire et ID de catégories se répètent d'une recette à l'autre :
+ * amorcé avec ces fragments, deflate compresse bien même une petite réponse isolée, ce que gzip ne peut pas.
+ * Le dictionnaire courant et le précédent restent téléchargeables, un client pouvant encore détenir l'ancien.
+ * Chaque instance entraîne ses propres dictionnaires sur son propre cache : derrière un répartiteur sans affinité,
+ * un identifiant obtenu d'une instance est inconnu des autres, qui répondent alors en gzip (ou 404 au téléchargement).
+ */
+@Component
+public class CompressionDictionaries {
+
+    /**
+     * Codage de contenu négocié : flux zlib amorcé par le dictionnaire indiqué dans DICTIONARY_HEADER
+     */
+    public static final String ENCODING = "x-deflate-dict";
+    public static final String DICTIONARY_HEADER = "X-Compression-Dictionary";
+
+    private static final int MIN_FRAGMENT = 4;
+    private static final int MAX_FRAGMENT = 256;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.compression-dictionary.max-bytes:32768}")
+    private int maxBytes;
+
+    private volatile Dictionary current;
+    private volatile Dictionary previous;
+
+    // Mesures du dernier entraînement sur les réponses écartées de l'entraînement
+    private volatile double gzipRatio;
+    private volatile double dictionaryRatio;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("compression.ratio", this, d -> d.gzipRatio).tag("codec", "gzip").register(meterRegistry);
+        Gauge.builder("compression.ratio", this, d -> d.dictionaryRatio).tag("codec", "dictionary").register(meterRegistry);
+    }
+
+    /**
+     * Dictionnaire courant, ou null avant le premier entraînement
+     */
+    public Dictionary current() {
+        return current;
+    }
+
+    /**
+     * Dictionnaire courant ou précédent portant cet identifiant, ou null
+     */
+    public Dictionary find(String id) {
+        Dictionary dictionary = current;
+        if (dictionary != null && dictionary.id().equals(id)) {
+            return dictionary;
+        }
+        dictionary = previous;
+        return dictionary != null && dictionary.id().equals(id) ? dictionary : null;
+    }
+
+    /**
+     * Entraîne un dictionnaire sur une moitié des réponses, le mesure contre gzip sur l'autre moitié,
+     * et le publie comme dictionnaire courant s'il est nouveau
+     */
+    public void train(List<byte[]> samples) {
+        List<byte[]> training = new ArrayList<>();
+        List<byte[]> evaluation = new ArrayList<>();
+        for (int i = 0; i < samples.size(); i++) {
+            (i % 2 == 0 ? training : evaluation).add(samples.get(i));
+        }
+
+        byte[] content = build(training);
+        if (content.length == 0) {
+            return;
+        }
+        Dictionary dictionary = new Dictionary(HexFormat.of().formatHex(sha256(content), 0, 8), content);
+        if (current != null && current.id().equals(dictionary.id())) {
+            return;
+        }
+        measure(dictionary, evaluation);
+        previous = current;
+        current = dictionary;
+    }
+
+    /**
+     * Compresse un corps avec ce dictionnaire (flux zlib, l'en-tête porte l'Adler-32 du dictionnaire)
+     */
+    public byte[] compress(Dictionary dictionary, byte[] body) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary.content());
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Fragments JSON (découpés aux délimiteurs , { } [ ]) présents dans plusieurs réponses,
+     * les plus rentables en fin de dictionnaire : deflate y référence les distances les plus courtes
+     */
+    private byte[] build(List<byte[]> samples) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (byte[] sample : samples) {
+            Set<String> fragments = new HashSet<>();
+            int start = 0;
+            for (int i = 0; i <= sample.length; i++) {
+                if (i == sample.length || isDelimiter(sample[i])) {
+                    int length = i - start;
+                    if (length >= MIN_FRAGMENT && length <= MAX_FRAGMENT) {
+                        fragments.add(new String(sample, start, length, StandardCharsets.UTF_8));
+                    }
+                    start = i + 1;
+                }
+            }
+            fragments.forEach(fragment -> documentFrequency.merge(fragment, 1, Integer::sum));
+        }
+
+        // Gain estimé : octets évités dans chaque autre réponse contenant le fragment
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(documentFrequency.entrySet());
+        ranked.removeIf(entry -> entry.getValue() < 2);
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, Integer> entry) ->
+                (long) (entry.getValue() - 1) * entry.getKey().length()).reversed());
+
+        List<byte[]> selected = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : ranked) {
+            byte[] fragment = (entry.getKey() + ",").getBytes(StandardCharsets.UTF_8);
+            if (size + fragment.length > maxBytes) {
+                continue;
+            }
+            selected.add(fragment);
+            size += fragment.length;
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream(size);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            content.writeBytes(selected.get(i));
+        }
+        return content.toByteArray();
+    }
+
+    private void measure(Dictionary dictionary, List<byte[]> samples) {
+        long raw = 0;
+        long gzipBytes = 0;
+        long dictionaryBytes = 0;
+        long gzipNanos = 0;
+        long dictionaryNanos = 0;
+        for (byte[] sample : samples) {
+            raw += sample.length;
+            long start = System.nanoTime();
+            gzipBytes += gzip(sample).length;
+            gzipNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            dictionaryBytes += compress(dictionary, sample).length;
+            dictionaryNanos += System.nanoTime() - start;
+        }
+        if (raw == 0) {
+            return;
+        }
+        gzipRatio = (double) raw / gzipBytes;
+        dictionaryRatio = (double) raw / dictionaryBytes;
+        System.out.printf("🗜️ Dictionnaire %s (%d octets) sur %d réponses : ratio gzip %.2f (%d µs), dictionnaire %.2f (%d µs)%n",
+                dictionary.id(), dictionary.content().length, samples.size(),
+                gzipRatio, gzipNanos / 1000, dictionaryRatio, dictionaryNanos / 1000);
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '{' || b == '}' || b == '[' || b == ']';
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Version de dictionnaire : identifiant (empreinte du contenu) et octets
+     */
+    public record Dictionary(String id, byte[] content) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.recipeapp.controller.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Dictionnaires de compression des réponses JSON, à télécharger par les clients qui acceptent
+ * le codage x-deflate-dict (en-têtes Accept-Encoding et X-Compression-Dictionary)
+ */
+@RestController
+@RequestMapping("/api/compression-dictionaries")
+@CrossOrigin(origins = "*")
+public class CompressionDictionaryApiController {
+
+    @Autowired
+    private CompressionDictionaries dictionaries;
+
+    /**
+     * Identifiant et URL du dictionnaire courant
+     */
+    @GetMapping("/current")
+    public ResponseEntity<Map<String, Object>> getCurrent() {
+        CompressionDictionaries.Dictionary dictionary = dictionaries.current();
+        if (dictionary == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of(
+                        "id", dictionary.id(),
+                        "size", dictionary.content().length,
+                        "url", "/api/compression-dictionaries/" + dictionary.id()));
+    }
+
+    /**
+     * Contenu d'un dictionnaire (courant ou précédent) ; immuable, son identifiant est son empreinte
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getDictionary(@PathVariable String id) {
+        CompressionDictionaries.Dictionary dictionary = dictionaries.find(id);
+        if (dictionary == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .body(dictionary.content());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.recipeapp.controller.api;
+
+import com.example.recipeapp.repository.DocumentPatch;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Requêtes conditionnelles HTTP (If-None-Match / If-Modified-Since).
+ * L'ETag d'un document est sa version (date de dernière écriture côté serveur), la même que celle
+ * acceptée par If-Match sur les PATCH ; celui d'une liste est une empreinte des ID et versions.
+ * Les recettes portent des compteurs (vues, favoris) qui ne changent pas leur version : leurs ETag sont faibles.
+ * Spring répond lui-même 304 sans sérialiser le corps quand les en-têtes de la réponse correspondent.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Réponse 200 portant l'ETag et la date de modification du document
+     */
+    static <T> ResponseEntity<T> ok(T body, String version) {
+        if (version == null) {
+            return ResponseEntity.ok(body);
+        }
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(version)
+                .lastModified(lastModified(version))
+                .body(body);
+    }
+
+    /**
+     * Réponse 200 d'une liste, avec une empreinte de ses éléments comme ETag
+     */
+    static <T> ResponseEntity<List<T>> okList(List<T> items, Function<T, String> id, Function<T, String> version) {
+        String etag = listETag(items, id, version);
+        if (etag == null) {
+            return ResponseEntity.ok(items);
+        }
+
+        // Corps encodé selon l'en-tête Accept (JSON, Smile ou CBOR)
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag);
+        long lastModified = listLastModified(items, version);
+        if (lastModified > 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(items);
+    }
+
+    /**
+     * Empreinte des ID et versions d'une liste, ou null si un élément n'a pas de version connue
+     */
+    static <T> String listETag(List<T> items, Function<T, String> id, Function<T, String> version) {
+        MessageDigest digest = sha256();
+        for (T item : items) {
+            String itemVersion = version.apply(item);
+            if (itemVersion == null) {
+                return null;
+            }
+            digest.update((id.apply(item) + '@' + itemVersion + ';').getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * Date de modification la plus récente d'une liste (0 si elle est vide)
+     */
+    static <T> long listLastModified(List<T> items, Function<T, String> version) {
+        long lastModified = 0;
+        for (T item : items) {
+            String itemVersion = version.apply(item);
+            if (itemVersion != null) {
+                lastModified = Math.max(lastModified, lastModified(itemVersion));
+            }
+        }
+        return lastModified;
+    }
+
+    /**
+     * Réponse 304 si la version connue correspond aux en-têtes conditionnels de la requête,
+     * à utiliser avant toute lecture du document ; null sinon
+     */
+    static <T> ResponseEntity<T> notModified(WebRequest request, String cachedVersion) {
+        return notModified(request, cachedVersion, false);
+    }
+
+    /**
+     * Variante avec un ETag faible, pour les représentations dont une partie (compteurs) ne suit pas la version
+     */
+    static <T> ResponseEntity<T> notModified(WebRequest request, String cachedVersion, boolean weak) {
+        if (cachedVersion == null || !matches(request, cachedVersion)) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(weak ? weak(cachedVersion) : cachedVersion)
+                .lastModified(lastModified(cachedVersion))
+                .build();
+    }
+
+    static String weak(String etag) {
+        return "W/\"" + etag + "\"";
+    }
+
+    private static boolean matches(WebRequest request, String version) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // Comparaison faible (RFC 9110) : le préfixe W/ est ignoré
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals("\"" + version + "\"")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = ifModifiedSince(request);
+        return ifModifiedSince >= 0 && lastModified(version) / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private static long ifModifiedSince(WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null) {
+            return -1;
+        }
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, request.getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+            return headers.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    static long lastModified(String version) {
+        return DocumentPatch.parseVersion(version).toDate().getTime();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.recipeapp.controller.api;
+
+import com.example.recipeapp.config.AcceptEncoding;
+import com.example.recipeapp.config.ApiFormats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache de réponses déjà encodées (et compressées en gzip), par clé, par format négocié et par version.
+ * Une entrée n'est servie que pour la version exacte demandée : toute écriture, qui change la version
+ * du document ou l'empreinte de la liste, la rend inutilisable. Les compteurs (vues, favoris) ne changent
+ * pas la version : une entrée expire donc après max-age-ms pour qu'ils n'aient qu'un retard borné.
+ * Le cache est borné en octets (LRU).
+ * Les réponses JSON sont aussi gardées compressées avec le dictionnaire courant, réentraîné
+ * périodiquement sur les recettes en cache ; à chaque rotation, les entrées sont recompressées une fois
+ * avec le nouveau dictionnaire, jamais pendant une requête.
+ */
+@Component
+public class JsonResponseCache {
+
+    @Autowired
+    private ApiFormats apiFormats;
+
+    @Autowired
+    private CompressionDictionaries dictionaries;
+
+    @Value("${recipe-app.compression-dictionary.enabled:true}")
+    private boolean dictionaryEnabled;
+
+    @Value("${recipe-app.compression-dictionary.samples:400}")
+    private int dictionarySamples;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.json-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${recipe-app.json-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    @Value("${recipe-app.json-cache.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("json.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("json.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("json.cache.bytes", this, cache -> cache.currentBytes()).register(meterRegistry);
+    }
+
+    /**
+     * Format de réponse demandé par le client (en-tête Accept)
+     */
+    public ApiFormats.Format negotiate(WebRequest request) {
+        return apiFormats.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * Retourne l'entrée encodée dans ce format pour cette version exacte, si elle n'a pas expiré
+     */
+    public Optional<Entry> get(String key, ApiFormats.Format format, String version) {
+        synchronized (entries) {
+            Entry entry = entries.get(format + ":" + key);
+            if (entry != null && System.currentTimeMillis() - entry.encodedAt > maxAgeMs) {
+                entries.remove(format + ":" + key);
+                totalBytes -= entry.size();
+                entry = null;
+            }
+            if (entry != null && entry.version.equals(version)) {
+                hits.increment();
+                return Optional.of(entry);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Encode une valeur dans ce format et la met en cache pour cette version
+     * (sans mise en cache si la version est inconnue)
+     */
+    public Entry put(String key, ApiFormats.Format format, String version, Object value) {
+        Entry entry = encode(format, version, value);
+        if (version == null || entry.size() > maxBytes / 8) {
+            return entry;
+        }
+
+        synchronized (entries) {
+            Entry previous = entries.put(format + ":" + key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += entry.size();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Réentraîne le dictionnaire de compression sur les recettes JSON en cache (aucune lecture Firestore)
+     */
+    @Scheduled(initialDelayString = "${recipe-app.compression-dictionary.initial-delay-ms:300000}",
+               fixedDelayString = "${recipe-app.compression-dictionary.rotate-interval-ms:3600000}")
+    public void rotateDictionary() {
+        if (!dictionaryEnabled) {
+            return;
+        }
+        List<byte[]> samples = new ArrayList<>();
+        String prefix = ApiFormats.Format.JSON + ":recipe:";
+        synchronized (entries) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (samples.size() >= dictionarySamples) {
+                    break;
+                }
+                if (entry.getKey().startsWith(prefix)) {
+                    samples.add(entry.getValue().body);
+                }
+            }
+        }
+        // Trop peu de réponses pour distinguer le vocabulaire commun des particularités d'une recette
+        if (samples.size() < 20) {
+            return;
+        }
+        CompressionDictionaries.Dictionary before = dictionaries.current();
+        dictionaries.train(samples);
+        CompressionDictionaries.Dictionary dictionary = dictionaries.current();
+        if (dictionary != null && dictionary != before) {
+            recompress(dictionary);
+        }
+    }
+
+    /**
+     * Recompresse les entrées JSON avec un nouveau dictionnaire, hors verrou ; une entrée remplacée
+     * entre-temps garde la compression de sa propre écriture
+     */
+    private void recompress(CompressionDictionaries.Dictionary dictionary) {
+        Map<String, Entry> snapshot = new LinkedHashMap<>();
+        String prefix = ApiFormats.Format.JSON + ":";
+        synchronized (entries) {
+            entries.forEach((key, entry) -> {
+                if (key.startsWith(prefix) && !dictionary.id().equals(entry.dictionaryId)) {
+                    snapshot.put(key, entry);
+                }
+            });
+        }
+        for (Map.Entry<String, Entry> item : snapshot.entrySet()) {
+            Entry entry = item.getValue();
+            Entry recompressed = entry.withDictionary(dictionary.id(), dictionaries.compress(dictionary, entry.body));
+            synchronized (entries) {
+                if (entries.replace(item.getKey(), entry, recompressed)) {
+                    totalBytes += recompressed.size() - entry.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Réponse 200 avec les octets de l'entrée, compressés avec le dictionnaire de l'entrée si le client le détient,
+     * sinon en gzip si le client l'accepte ; Spring répond 304 si l'ETag correspond à la requête
+     */
+    public ResponseEntity<byte[]> respond(Entry entry, String etag, long lastModified, WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        // Un autre dictionnaire (précédent, ou entraîné par une autre instance) donne une réponse gzip
+        boolean dictionary = entry.dictionaryId != null
+                && entry.dictionaryId.equals(request.getHeader(CompressionDictionaries.DICTIONARY_HEADER))
+                && AcceptEncoding.accepts(acceptEncoding, CompressionDictionaries.ENCODING);
+        boolean gzip = !dictionary && entry.gzip != null && AcceptEncoding.accepts(acceptEncoding, "gzip");
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(entry.format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, CompressionDictionaries.DICTIONARY_HEADER);
+        if (etag != null) {
+            // ETag faible : les compteurs des recettes changent sans changer leur version,
+            // et les variantes compressées ou binaires n'ont pas les mêmes octets
+            builder.eTag(ConditionalResponses.weak(etag));
+        }
+        if (lastModified > 0) {
+            builder.lastModified(lastModified);
+        }
+        if (dictionary) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, CompressionDictionaries.ENCODING);
+            builder.header(CompressionDictionaries.DICTIONARY_HEADER, entry.dictionaryId);
+            return builder.body(entry.dictionaryBody);
+        }
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return builder.body(entry.gzip);
+        }
+        return builder.body(entry.body);
+    }
+
+    private Entry encode(ApiFormats.Format format, String version, Object value) {
+        try {
+            byte[] body = apiFormats.mapper(format).writeValueAsBytes(value);
+            byte[] gzip = null;
+            if (body.length >= gzipMinBytes) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4);
+                try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                    out.write(body);
+                }
+                gzip = buffer.toByteArray();
+            }
+            CompressionDictionaries.Dictionary dictionary = format == ApiFormats.Format.JSON ? dictionaries.current() : null;
+            long now = System.currentTimeMillis();
+            return dictionary == null
+                    ? new Entry(format, version, body, gzip, null, null, now)
+                    : new Entry(format, version, body, gzip, dictionary.id(), dictionaries.compress(dictionary, body), now);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation " + format + " impossible", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long currentBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Réponse encodée : octets bruts du format, au-delà d'une taille minimale leur version gzip,
+     * et pour JSON leur version compressée avec le dictionnaire courant lors de l'encodage
+     */
+    public static final class Entry {
+        private final ApiFormats.Format format;
+        private final String version;
+        private final byte[] body;
+        private final byte[] gzip;
+        private final String dictionaryId;
+        private final byte[] dictionaryBody;
+        private final long encodedAt;
+
+        Entry(ApiFormats.Format format, String version, byte[] body, byte[] gzip,
+              String dictionaryId, byte[] dictionaryBody, long encodedAt) {
+            this.format = format;
+            this.version = version;
+            this.body = body;
+            this.gzip = gzip;
+            this.dictionaryId = dictionaryId;
+            this.dictionaryBody = dictionaryBody;
+            this.encodedAt = encodedAt;
+        }
+
+        /**
+         * Même réponse, compressée avec un autre dictionnaire ; la date d'encodage est conservée
+         */
+        Entry withDictionary(String dictionaryId, byte[] dictionaryBody) {
+            return new Entry(format, version, body, gzip, dictionaryId, dictionaryBody, encodedAt);
+        }
+
+        public String getVersion() { return version; }
+
+        long size() {
+            return body.length + (gzip == null ? 0 : gzip.length) + (dictionaryBody == null ? 0 : dictionaryBody.length);
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.recipeapp.controller.api;
 
+import com.example.recipeapp.config.ApiFormats;
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeDelta;
+import com.example.recipeapp.service.RecipeChangeFeed;
 import com.example.recipeapp.service.RecipeService;
+import com.example.recipeapp.service.SyncTokenExpiredException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * API REST pour les recettes
@@ -18,17 +36,28 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class RecipeApiController {
 
+    private static final int MAX_CHANGES = 500;
+
     @Autowired
     private RecipeService recipeService;
 
+    @Autowired
+    private JsonResponseCache jsonCache;
+
+    @Autowired
+    private RecipeChangeFeed changeFeed;
+
+    @Value("${recipe-app.change-feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
     /**
      * Récupère toutes les recettes publiées
      */
     @GetMapping
-    public ResponseEntity<List<Recipe>> getAllRecipes() {
+    public ResponseEntity<byte[]> getAllRecipes(WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.findAllPublished();
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:all", recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -36,13 +65,32 @@ public class RecipeApiController {
 
     /**
      * Récupère une recette par ID
+     * Une revalidation (If-None-Match) sur la version en cache est répondue 304 sans lecture ni vue comptée ;
+     * si la réponse encodée de cette version est en cache, seule la vue est écrite, sans relecture
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Recipe> getRecipeById(@PathVariable String id) {
+    public ResponseEntity<byte[]> getRecipeById(@PathVariable String id, WebRequest request) {
         try {
+            String cachedVersion = recipeService.findCachedVersion(id).orElse(null);
+            ResponseEntity<byte[]> notModified = ConditionalResponses.notModified(request, cachedVersion, true);
+            if (notModified != null) {
+                return notModified;
+            }
+
+            String key = "recipe:" + id;
+            Optional<JsonResponseCache.Entry> cached = cachedVersion == null
+                    ? Optional.empty() : jsonCache.get(key, jsonCache.negotiate(request), cachedVersion);
+            if (cached.isPresent()) {
+                // Une vue ne change pas la version : le corps en cache reste valide
+                recipeService.recordView(id);
+                return jsonCache.respond(cached.get(), cachedVersion, ConditionalResponses.lastModified(cachedVersion), request);
+            }
+
             Optional<Recipe> recipe = recipeService.findByIdAndIncrementViews(id);
-            return recipe.map(ResponseEntity::ok)
-                        .orElse(ResponseEntity.notFound().build());
+            if (recipe.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return respond(key, recipe.get(), recipe.get().getVersion(), request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -67,8 +115,13 @@ public class RecipeApiController {
      * Met à jour une recette existante
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Recipe> updateRecipe(@PathVariable String id, @RequestBody Recipe recipe) {
+    public ResponseEntity<Recipe> updateRecipe(@PathVariable String id, @RequestBody Recipe recipe,
+                                               Authentication authentication) {
         try {
+            HttpStatus denied = editDenied(authentication, id);
+            if (denied != null) {
+                return ResponseEntity.status(denied).build();
+            }
             recipe.setId(id);
             Recipe updatedRecipe = recipeService.updateRecipe(recipe);
             return ResponseEntity.ok(updatedRecipe);
@@ -79,12 +132,42 @@ public class RecipeApiController {
         }
     }
 
+    /**
+     * Met à jour partiellement une recette
+     * L'en-tête If-Match (version renvoyée dans l'ETag) active le contrôle de concurrence optimiste
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchRecipe(@PathVariable String id,
+                                            @RequestBody Map<String, Object> changes,
+                                            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                            Authentication authentication) {
+        try {
+            HttpStatus denied = editDenied(authentication, id);
+            if (denied != null) {
+                return ResponseEntity.status(denied).build();
+            }
+            Optional<String> version = recipeService.patchRecipe(id, changes, ifMatch);
+            return version.map(v -> ResponseEntity.noContent().eTag(v).<Void>build())
+                          .orElse(ResponseEntity.notFound().build());
+        } catch (ConcurrentModificationException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Supprime une recette
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteRecipe(@PathVariable String id) {
+    public ResponseEntity<Void> deleteRecipe(@PathVariable String id, Authentication authentication) {
         try {
+            HttpStatus denied = editDenied(authentication, id);
+            if (denied != null) {
+                return ResponseEntity.status(denied).build();
+            }
             boolean deleted = recipeService.deleteRecipe(id);
             return deleted ? ResponseEntity.noContent().build() 
                           : ResponseEntity.notFound().build();
@@ -97,10 +180,10 @@ public class RecipeApiController {
      * Recherche de recettes par titre
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Recipe>> searchRecipes(@RequestParam String q) {
+    public ResponseEntity<byte[]> searchRecipes(@RequestParam String q, WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.searchByTitle(q);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:search:" + q, recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -110,10 +193,10 @@ public class RecipeApiController {
      * Récupère les recettes par catégorie
      */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Recipe>> getRecipesByCategory(@PathVariable String categoryId) {
+    public ResponseEntity<byte[]> getRecipesByCategory(@PathVariable String categoryId, WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.findByCategoryId(categoryId);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:category:" + categoryId, recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -123,10 +206,10 @@ public class RecipeApiController {
      * Récupère les recettes par auteur
      */
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<Recipe>> getRecipesByAuthor(@PathVariable String authorId) {
+    public ResponseEntity<byte[]> getRecipesByAuthor(@PathVariable String authorId, WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.findPublishedByAuthorId(authorId);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:author:" + authorId, recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -136,11 +219,11 @@ public class RecipeApiController {
      * Récupère les recettes par difficulté
      */
     @GetMapping("/difficulty/{difficulty}")
-    public ResponseEntity<List<Recipe>> getRecipesByDifficulty(@PathVariable String difficulty) {
+    public ResponseEntity<byte[]> getRecipesByDifficulty(@PathVariable String difficulty, WebRequest request) {
         try {
             Recipe.DifficultyLevel level = Recipe.DifficultyLevel.valueOf(difficulty.toUpperCase());
             List<Recipe> recipes = recipeService.findByDifficulty(level);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:difficulty:" + level, recipes, request);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
@@ -152,10 +235,10 @@ public class RecipeApiController {
      * Récupère les recettes les mieux notées
      */
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Recipe>> getTopRatedRecipes(@RequestParam(defaultValue = "10") int limit) {
+    public ResponseEntity<byte[]> getTopRatedRecipes(@RequestParam(defaultValue = "10") int limit, WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.findTopRated(limit);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:top-rated:" + limit, recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -165,10 +248,10 @@ public class RecipeApiController {
      * Récupère les recettes les plus récentes
      */
     @GetMapping("/latest")
-    public ResponseEntity<List<Recipe>> getLatestRecipes(@RequestParam(defaultValue = "10") int limit) {
+    public ResponseEntity<byte[]> getLatestRecipes(@RequestParam(defaultValue = "10") int limit, WebRequest request) {
         try {
             List<Recipe> recipes = recipeService.findLatest(limit);
-            return ResponseEntity.ok(recipes);
+            return respondList("recipes:latest:" + limit, recipes, request);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -194,8 +277,13 @@ public class RecipeApiController {
      * Met à jour le statut de publication d'une recette
      */
     @PatchMapping("/{id}/publish")
-    public ResponseEntity<Void> updatePublishStatus(@PathVariable String id, @RequestParam boolean published) {
+    public ResponseEntity<Void> updatePublishStatus(@PathVariable String id, @RequestParam boolean published,
+                                                    Authentication authentication) {
         try {
+            HttpStatus denied = editDenied(authentication, id);
+            if (denied != null) {
+                return ResponseEntity.status(denied).build();
+            }
             recipeService.updatePublishedStatus(id, published);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -215,4 +303,95 @@ public class RecipeApiController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Synchronisation différentielle : recettes créées, modifiées ou supprimées depuis le jeton since
+     * (toutes les recettes publiées sans jeton). Le jeton retourné sert à la demande suivante ;
+     * hasMore indique d'autres changements à lire tout de suite. Un jeton expiré répond 410.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<RecipeDelta> getChanges(@RequestParam(required = false) String since,
+                                                  @RequestParam(defaultValue = "200") int limit) {
+        try {
+            RecipeDelta delta = recipeService.changesSince(since, Math.max(1, Math.min(limit, MAX_CHANGES)));
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(delta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SyncTokenExpiredException e) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Changements de recettes en direct (Server-Sent Events) : dernières recettes publiées, ou une recette (id).
+     * L'état courant est envoyé en premier, puis chaque ajout ou modification ("recipe") et chaque sortie du
+     * périmètre ("removed") ; un commentaire périodique maintient la connexion ouverte.
+     * Une recette inconnue répond 404 sans ouvrir d'écoute ; 503 si le plafond d'écoutes est atteint.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamChanges(@RequestParam(required = false) String id) {
+        try {
+            if (id != null && !recipeService.existsById(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            Flux<ServerSentEvent<Object>> events = (id == null ? changeFeed.latest() : changeFeed.recipe(id))
+                    .index()
+                    .concatMapIterable(indexed -> indexed.getT1() == 0
+                            ? toEvents(indexed.getT2().current(), List.of())
+                            : toEvents(indexed.getT2().updated(), indexed.getT2().removed()));
+
+            Sinks.Empty<Void> closed = Sinks.empty();
+            Duration interval = Duration.ofSeconds(heartbeatSeconds);
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(interval, interval)
+                    .map(tick -> ServerSentEvent.builder().comment("heartbeat").build())
+                    .takeUntilOther(closed.asMono());
+            return ResponseEntity.ok(Flux.merge(events.doFinally(signal -> closed.tryEmitEmpty()), heartbeats));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Statut de refus si l'appelant ne peut pas modifier la recette (auteur ou administrateur actif), null sinon
+     */
+    private HttpStatus editDenied(Authentication authentication, String recipeId) throws ExecutionException, InterruptedException {
+        if (authentication == null) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return recipeService.canUserEditRecipe(authentication.getName(), recipeId) ? null : HttpStatus.FORBIDDEN;
+    }
+
+    private static List<ServerSentEvent<Object>> toEvents(List<Recipe> updated, List<String> removed) {
+        List<ServerSentEvent<Object>> events = new ArrayList<>(updated.size() + removed.size());
+        for (Recipe recipe : updated) {
+            events.add(ServerSentEvent.<Object>builder(recipe).event("recipe").id(recipe.getId()).build());
+        }
+        for (String removedId : removed) {
+            events.add(ServerSentEvent.<Object>builder(Map.of("id", removedId)).event("removed").id(removedId).build());
+        }
+        return events;
+    }
+
+    /**
+     * Réponse d'une liste de recettes, encodée une seule fois par empreinte de la liste
+     */
+    private ResponseEntity<byte[]> respondList(String key, List<Recipe> recipes, WebRequest request) {
+        String etag = ConditionalResponses.listETag(recipes, Recipe::getId, Recipe::getVersion);
+        return respond(key, recipes, etag, ConditionalResponses.listLastModified(recipes, Recipe::getVersion), request);
+    }
+
+    private ResponseEntity<byte[]> respond(String key, Recipe recipe, String version, WebRequest request) {
+        return respond(key, recipe, version, version == null ? 0 : ConditionalResponses.lastModified(version), request);
+    }
+
+    private ResponseEntity<byte[]> respond(String key, Object body, String etag, long lastModified, WebRequest request) {
+        ApiFormats.Format format = jsonCache.negotiate(request);
+        Optional<JsonResponseCache.Entry> cached = etag == null ? Optional.empty() : jsonCache.get(key, format, etag);
+        JsonResponseCache.Entry entry = cached.orElseGet(() -> jsonCache.put(key, format, etag, body));
+        return jsonCache.respond(entry, etag, lastModified, request);
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.recipeapp.controller.api;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.service.RecipeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * API de lecture réactive des recettes (v2), à côté de l'API REST classique.
+ * Les listes sont envoyées en NDJSON (une recette par ligne) à mesure de leur lecture :
+ * Firestore n'est relu qu'au rythme du client, et aucun thread n'attend Firestore.
+ */
+@RestController
+@RequestMapping("/api/v2/recipes")
+@CrossOrigin(origins = "*")
+public class RecipeStreamApiController {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    /**
+     * Recettes publiées, éventuellement d'une seule catégorie
+     * Une erreur de lecture interrompt le flux : la réponse se termine sans sa dernière ligne
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Recipe> streamRecipes(@RequestParam(required = false) String categoryId) {
+        Flux<Recipe> recipes = categoryId == null
+                ? recipeService.fluxPublished()
+                : recipeService.fluxByCategoryId(categoryId);
+        return recipes.doOnError(e -> System.err.println("❌ Flux de recettes interrompu : " + e.getMessage()));
+    }
+
+    /**
+     * Récupère une recette par ID (lecture seule : aucune vue n'est comptée)
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Recipe>> getRecipeById(@PathVariable String id) {
+        return recipeService.monoById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+    }
+}
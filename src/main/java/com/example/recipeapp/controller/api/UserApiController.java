@@ -1,14 +1,23 @@
 package com.example.recipeapp.controller.api;
 
 import com.example.recipeapp.model.User;
+import com.example.recipeapp.service.TokenService;
+import com.example.recipeapp.service.TooManyAttemptsException;
 import com.example.recipeapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * API REST pour les utilisateurs
@@ -21,6 +30,9 @@ public class UserApiController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TokenService tokenService;
+
     /**
      * Récupère tous les utilisateurs actifs
      */
@@ -30,7 +42,7 @@ public class UserApiController {
             List<User> users = userService.findAllActive();
             // Nettoyer les mots de passe avant de retourner les données
             users.forEach(user -> user.setPassword(null));
-            return ResponseEntity.ok(users);
+            return ConditionalResponses.okList(users, User::getId, User::getVersion);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -40,14 +52,20 @@ public class UserApiController {
      * Récupère un utilisateur par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable String id) {
+    public ResponseEntity<User> getUserById(@PathVariable String id, WebRequest request) {
         try {
+            ResponseEntity<User> notModified = ConditionalResponses.notModified(request,
+                    userService.findCachedVersion(id).orElse(null));
+            if (notModified != null) {
+                return notModified;
+            }
+
             Optional<User> user = userService.findById(id);
             if (user.isPresent()) {
                 User userObj = user.get();
                 // Nettoyer le mot de passe avant de retourner les données
                 userObj.setPassword(null);
-                return ResponseEntity.ok(userObj);
+                return ConditionalResponses.ok(userObj, userObj.getVersion());
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -67,7 +85,7 @@ public class UserApiController {
                 User userObj = user.get();
                 // Nettoyer le mot de passe avant de retourner les données
                 userObj.setPassword(null);
-                return ResponseEntity.ok(userObj);
+                return ConditionalResponses.ok(userObj, userObj.getVersion());
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -76,6 +94,31 @@ public class UserApiController {
         }
     }
 
+    /**
+     * Indique si un nom d'utilisateur et/ou un email sont disponibles (formulaire d'inscription)
+     */
+    @GetMapping("/available")
+    public ResponseEntity<Map<String, Object>> checkAvailability(@RequestParam(required = false) String username,
+                                                                 @RequestParam(required = false) String email) {
+        if ((username == null || username.trim().isEmpty()) && (email == null || email.trim().isEmpty())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            Map<String, Object> availability = new LinkedHashMap<>();
+            if (username != null && !username.trim().isEmpty()) {
+                availability.put("username", username.trim());
+                availability.put("usernameAvailable", userService.isUsernameAvailable(username));
+            }
+            if (email != null && !email.trim().isEmpty()) {
+                availability.put("email", email.trim());
+                availability.put("emailAvailable", userService.isEmailAvailable(email));
+            }
+            return ResponseEntity.ok(availability);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Crée un nouvel utilisateur
      */
@@ -86,6 +129,8 @@ public class UserApiController {
             // Nettoyer le mot de passe avant de retourner les données
             createdUser.setPassword(null);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
@@ -104,6 +149,31 @@ public class UserApiController {
             // Nettoyer le mot de passe avant de retourner les données
             updatedUser.setPassword(null);
             return ResponseEntity.ok(updatedUser);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Met à jour partiellement un utilisateur
+     * L'en-tête If-Match (version renvoyée dans l'ETag) active le contrôle de concurrence optimiste
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchUser(@PathVariable String id,
+                                          @RequestBody Map<String, Object> changes,
+                                          @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Optional<String> version = userService.patchUser(id, changes, ifMatch);
+            return version.map(v -> ResponseEntity.noContent().eTag(v).<Void>build())
+                          .orElse(ResponseEntity.notFound().build());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (ConcurrentModificationException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
@@ -140,24 +210,52 @@ public class UserApiController {
 
     /**
      * Authentifie un utilisateur
+     * Le jeton signé renvoyé dans X-Auth-Token s'utilise ensuite en Authorization: Bearer
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<User> authenticateUser(@RequestBody AuthRequest authRequest) {
+    public ResponseEntity<User> authenticateUser(@RequestBody AuthRequest authRequest, HttpServletRequest request) {
         try {
-            Optional<User> user = userService.authenticate(authRequest.getUsernameOrEmail(), authRequest.getPassword());
+            Optional<User> user = userService.authenticate(authRequest.getUsernameOrEmail(), authRequest.getPassword(),
+                                                           request.getRemoteAddr());
             if (user.isPresent()) {
                 User userObj = user.get();
+                TokenService.IssuedToken token = tokenService.issue(userObj);
                 // Nettoyer le mot de passe avant de retourner les données
                 userObj.setPassword(null);
-                return ResponseEntity.ok(userObj);
+                return ResponseEntity.ok()
+                                     .header("X-Auth-Token", token.getToken())
+                                     .header("X-Auth-Token-Expires", String.valueOf(token.getExpiresAt()))
+                                     .body(userObj);
             } else {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
+        } catch (TooManyAttemptsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                 .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                                 .build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Déconnecte l'utilisateur en révoquant le jeton présenté
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<TokenService.TokenClaims> claims = tokenService.verify(authorization.substring("Bearer ".length()).trim());
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        tokenService.revoke(claims.get());
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Change le mot de passe d'un utilisateur
      */
@@ -166,6 +264,12 @@ public class UserApiController {
         try {
             userService.changePassword(id, request.getOldPassword(), request.getNewPassword());
             return ResponseEntity.ok().build();
+        } catch (TooManyAttemptsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                 .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                                 .build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
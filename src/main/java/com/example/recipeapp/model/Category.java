@@ -1,12 +1,15 @@
 package com.example.recipeapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.firestore.annotation.Exclude;
 import com.google.cloud.firestore.annotation.PropertyName;
 import com.google.cloud.Timestamp;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 
+import java.util.Date;
 import java.util.Objects;
 
 /**
@@ -16,6 +19,11 @@ public class Category {
     
     @DocumentId
     private String id;
+
+    // Version du document (date de dernière écriture côté serveur), ni stockée ni sérialisée
+    @Exclude
+    @JsonIgnore
+    private String version;
     
     @NotBlank(message = "Le nom de la catégorie est obligatoire")
     @Size(min = 2, max = 100, message = "Le nom doit contenir entre 2 et 100 caractères")
@@ -69,6 +77,16 @@ public class Category {
         this.id = id;
     }
 
+    @Exclude
+    public String getVersion() {
+        return version;
+    }
+
+    @Exclude
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
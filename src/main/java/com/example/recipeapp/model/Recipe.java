@@ -1,8 +1,11 @@
 package com.example.recipeapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.firestore.annotation.Exclude;
 import com.google.cloud.firestore.annotation.PropertyName;
 import com.google.cloud.Timestamp;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 
 
@@ -16,6 +19,11 @@ public class Recipe {
     
     @DocumentId
     private String id;
+
+    // Version du document (date de dernière écriture côté serveur), ni stockée ni sérialisée
+    @Exclude
+    @JsonIgnore
+    private String version;
     
     @NotBlank(message = "Le titre de la recette est obligatoire")
     @Size(min = 3, max = 200, message = "Le titre doit contenir entre 3 et 200 caractères")
@@ -25,13 +33,14 @@ public class Recipe {
     @PropertyName("description")
     private String description;
     
+    // Corps de la recette : stocké dans un sous-document (voir RecipeBody)
     @NotNull(message = "Les ingrédients sont obligatoires")
-    @PropertyName("ingredients")
-    private List<Ingredient> ingredients;
+    @Exclude
+    private List<@NotNull @Valid Ingredient> ingredients;
     
     @NotNull(message = "Les instructions sont obligatoires")
-    @PropertyName("instructions")
-    private List<Instruction> instructions;
+    @Exclude
+    private List<@NotNull @Valid Instruction> instructions;
     
     @NotBlank(message = "La catégorie est obligatoire")
     @PropertyName("categoryId")
@@ -63,7 +72,7 @@ public class Recipe {
     @PropertyName("tags")
     private List<String> tags;
     
-    @PropertyName("nutritionInfo")
+    @Exclude
     private NutritionInfo nutritionInfo;
     
     @PropertyName("rating")
@@ -106,9 +115,11 @@ public class Recipe {
 
     // Classe interne pour les ingrédients
     public static class Ingredient {
+        @NotBlank(message = "Le nom de l'ingrédient est obligatoire")
         @PropertyName("name")
         private String name;
         
+        @PositiveOrZero(message = "La quantité ne peut pas être négative")
         @PropertyName("quantity")
         private Double quantity;
         
@@ -158,15 +169,18 @@ public class Recipe {
 
     // Classe interne pour les instructions
     public static class Instruction {
+        @Min(value = 1, message = "Le numéro d'étape doit être au moins 1")
         @PropertyName("stepNumber")
         private Integer stepNumber;
         
+        @NotBlank(message = "La description de l'étape est obligatoire")
         @PropertyName("description")
         private String description;
         
         @PropertyName("imageUrl")
         private String imageUrl;
         
+        @Min(value = 0, message = "La durée d'une étape ne peut pas être négative")
         @PropertyName("timeMinutes")
         private Integer timeMinutes;
 
@@ -249,6 +263,11 @@ public class Recipe {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    @Exclude
+    public String getVersion() { return version; }
+    @Exclude
+    public void setVersion(String version) { this.version = version; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { 
         this.title = title; 
@@ -261,13 +280,17 @@ public class Recipe {
         this.updatedAt = Timestamp.now();
     }
 
+    @Exclude
     public List<Ingredient> getIngredients() { return ingredients; }
+    @Exclude
     public void setIngredients(List<Ingredient> ingredients) { 
         this.ingredients = ingredients; 
         this.updatedAt = Timestamp.now();
     }
 
+    @Exclude
     public List<Instruction> getInstructions() { return instructions; }
+    @Exclude
     public void setInstructions(List<Instruction> instructions) { 
         this.instructions = instructions; 
         this.updatedAt = Timestamp.now();
@@ -321,7 +344,9 @@ public class Recipe {
         this.updatedAt = Timestamp.now();
     }
 
+    @Exclude
     public NutritionInfo getNutritionInfo() { return nutritionInfo; }
+    @Exclude
     public void setNutritionInfo(NutritionInfo nutritionInfo) { 
         this.nutritionInfo = nutritionInfo; 
         this.updatedAt = Timestamp.now();
@@ -0,0 +1,56 @@
+package com.example.recipeapp.model;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.annotation.PropertyName;
+
+import java.util.List;
+
+/**
+ * Corps d'une recette (ingrédients, étapes, informations nutritionnelles).
+ * Stocké à part dans recipes/{id}/content/body et chargé uniquement pour la page de détail ;
+ * le document recipes/{id} ne contient que l'en-tête utilisé par les listes et les compteurs.
+ */
+public class RecipeBody {
+
+    @PropertyName("ingredients")
+    private List<Recipe.Ingredient> ingredients;
+
+    @PropertyName("instructions")
+    private List<Recipe.Instruction> instructions;
+
+    @PropertyName("nutritionInfo")
+    private Recipe.NutritionInfo nutritionInfo;
+
+    // Constructeurs
+    public RecipeBody() {}
+
+    public static RecipeBody from(Recipe recipe) {
+        RecipeBody body = new RecipeBody();
+        body.ingredients = recipe.getIngredients();
+        body.instructions = recipe.getInstructions();
+        body.nutritionInfo = recipe.getNutritionInfo();
+        return body;
+    }
+
+    // Getters et Setters
+    public List<Recipe.Ingredient> getIngredients() { return ingredients; }
+    public void setIngredients(List<Recipe.Ingredient> ingredients) { this.ingredients = ingredients; }
+
+    public List<Recipe.Instruction> getInstructions() { return instructions; }
+    public void setInstructions(List<Recipe.Instruction> instructions) { this.instructions = instructions; }
+
+    public Recipe.NutritionInfo getNutritionInfo() { return nutritionInfo; }
+    public void setNutritionInfo(Recipe.NutritionInfo nutritionInfo) { this.nutritionInfo = nutritionInfo; }
+
+    // Méthodes utilitaires
+    /**
+     * Complète une recette (en-tête) avec ce corps, sans modifier sa date de mise à jour
+     */
+    public void applyTo(Recipe recipe) {
+        Timestamp updatedAt = recipe.getUpdatedAt();
+        recipe.setIngredients(ingredients);
+        recipe.setInstructions(instructions);
+        recipe.setNutritionInfo(nutritionInfo);
+        recipe.setUpdatedAt(updatedAt);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.recipeapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.cloud.firestore.annotation.DocumentId;
+import com.google.cloud.firestore.annotation.Exclude;
 import com.google.cloud.firestore.annotation.PropertyName;
 import com.google.cloud.Timestamp;
 import jakarta.validation.constraints.Email;
@@ -17,6 +19,11 @@ public class User {
     
     @DocumentId
     private String id;
+
+    // Version du document (date de dernière écriture côté serveur), ni stockée ni sérialisée
+    @Exclude
+    @JsonIgnore
+    private String version;
     
     @NotBlank(message = "Le nom d'utilisateur est obligatoire")
     @Size(min = 3, max = 50, message = "Le nom d'utilisateur doit contenir entre 3 et 50 caractères")
@@ -81,6 +88,16 @@ public class User {
         this.id = id;
     }
 
+    @Exclude
+    public String getVersion() {
+        return version;
+    }
+
+    @Exclude
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -22,6 +22,12 @@ public class CategoryRepository {
     @Autowired
     private Firestore firestore;
 
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
+    @Autowired
+    private VersionCache versionCache;
+
     /**
      * Sauvegarde ou met à jour une catégorie
      */
@@ -36,6 +42,8 @@ public class CategoryRepository {
         
         ApiFuture<WriteResult> result = categories.document(category.getId()).set(category);
         result.get(); // Attendre la completion
+        versionCache.invalidate(COLLECTION_NAME, category.getId());
+        existenceFilter.recordWrite(ExistenceFilter.KeySpace.CATEGORY_SLUGS, category.getSlug());
         return category;
     }
 
@@ -47,6 +55,7 @@ public class CategoryRepository {
             return Optional.empty();
         }
         
+        long stamp = versionCache.stamp();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
         ApiFuture<DocumentSnapshot> future = docRef.get();
         DocumentSnapshot document = future.get();
@@ -55,6 +64,8 @@ public class CategoryRepository {
             Category category = document.toObject(Category.class);
             if (category != null) {
                 category.setId(document.getId());
+                category.setVersion(document.getUpdateTime().toString());
+                versionCache.put(COLLECTION_NAME, id, category.getVersion(), stamp);
             }
             return Optional.ofNullable(category);
         }
@@ -62,6 +73,13 @@ public class CategoryRepository {
         return Optional.empty();
     }
 
+    /**
+     * Retourne la dernière version connue d'une catégorie, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return versionCache.get(COLLECTION_NAME, id);
+    }
+
     /**
      * Trouve une catégorie par son nom
      */
@@ -79,6 +97,7 @@ public class CategoryRepository {
             QueryDocumentSnapshot document = documents.get(0);
             Category category = document.toObject(Category.class);
             category.setId(document.getId());
+            category.setVersion(document.getUpdateTime().toString());
             return Optional.of(category);
         }
         
@@ -86,13 +105,17 @@ public class CategoryRepository {
     }
 
     /**
-     * Trouve une catégorie par son slug
+     * Trouve une catégorie par son slug (les slugs certainement inexistants ne sont pas lus)
      */
     public Optional<Category> findBySlug(String slug) throws ExecutionException, InterruptedException {
         if (slug == null || slug.trim().isEmpty()) {
             return Optional.empty();
         }
         
+        return existenceFilter.lookup(ExistenceFilter.KeySpace.CATEGORY_SLUGS, slug, () -> readBySlug(slug));
+    }
+
+    private Optional<Category> readBySlug(String slug) throws ExecutionException, InterruptedException {
         CollectionReference categories = firestore.collection(COLLECTION_NAME);
         Query query = categories.whereEqualTo("slug", slug.trim());
         ApiFuture<QuerySnapshot> querySnapshot = query.get();
@@ -102,6 +125,7 @@ public class CategoryRepository {
             QueryDocumentSnapshot document = documents.get(0);
             Category category = document.toObject(Category.class);
             category.setId(document.getId());
+            category.setVersion(document.getUpdateTime().toString());
             return Optional.of(category);
         }
         
@@ -121,6 +145,7 @@ public class CategoryRepository {
         for (QueryDocumentSnapshot document : documents) {
             Category category = document.toObject(Category.class);
             category.setId(document.getId());
+            category.setVersion(document.getUpdateTime().toString());
             categoryList.add(category);
         }
         
@@ -140,6 +165,7 @@ public class CategoryRepository {
         for (QueryDocumentSnapshot document : documents) {
             Category category = document.toObject(Category.class);
             category.setId(document.getId());
+            category.setVersion(document.getUpdateTime().toString());
             categoryList.add(category);
         }
         
@@ -157,6 +183,7 @@ public class CategoryRepository {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
         ApiFuture<WriteResult> result = docRef.delete();
         result.get();
+        versionCache.invalidate(COLLECTION_NAME, id);
         return true;
     }
 
@@ -200,6 +227,7 @@ public class CategoryRepository {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(categoryId);
         ApiFuture<WriteResult> result = docRef.update("active", active);
         result.get();
+        versionCache.invalidate(COLLECTION_NAME, categoryId);
     }
 
     /**
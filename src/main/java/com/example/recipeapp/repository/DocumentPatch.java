@@ -0,0 +1,117 @@
+package com.example.recipeapp.repository;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Mise à jour partielle d'un document Firestore avec contrôle de concurrence optimiste.
+ * La version d'un document est sa date de dernière écriture côté serveur (format RFC 3339).
+ */
+public final class DocumentPatch {
+
+    private DocumentPatch() {
+    }
+
+    /**
+     * Écrit uniquement les champs fournis, sans lecture préalable.
+     * Retourne la nouvelle version du document, ou vide si le document n'existe pas.
+     * Lève une ConcurrentModificationException si la version attendue ne correspond plus.
+     */
+    public static Optional<String> apply(DocumentReference docRef, Map<String, Object> fields, String expectedVersion)
+            throws ExecutionException, InterruptedException {
+        return apply(docRef, fields, expectedVersion, batch -> { });
+    }
+
+    /**
+     * Variante qui ajoute d'autres écritures (sous-documents...) au même batch atomique.
+     * La version retournée reste celle du document principal.
+     */
+    public static Optional<String> apply(DocumentReference docRef, Map<String, Object> fields, String expectedVersion,
+                                         Consumer<WriteBatch> additionalWrites)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> update = new HashMap<>(fields);
+        // updatedAt prend la valeur exacte de la date de commit, donc de la nouvelle version
+        update.put("updatedAt", FieldValue.serverTimestamp());
+
+        WriteBatch batch = docRef.getFirestore().batch();
+        if (expectedVersion == null || isAnyVersion(expectedVersion)) {
+            // update() sans précondition explicite exige l'existence du document
+            batch.update(docRef, update);
+        } else {
+            batch.update(docRef, update, Precondition.updatedAt(parseVersion(expectedVersion)));
+        }
+        additionalWrites.accept(batch);
+
+        try {
+            List<WriteResult> results = batch.commit().get();
+            return Optional.of(results.get(0).getUpdateTime().toString());
+        } catch (ExecutionException e) {
+            StatusCode.Code code = statusCode(e);
+            if (code == StatusCode.Code.NOT_FOUND) {
+                return Optional.empty();
+            }
+            if (code == StatusCode.Code.FAILED_PRECONDITION) {
+                throw new ConcurrentModificationException("Le document a été modifié depuis la version " + expectedVersion);
+            }
+            if (code == StatusCode.Code.ALREADY_EXISTS) {
+                throw new IllegalStateException("Une des valeurs écrites est déjà réservée");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Vrai pour If-Match: * (toute version convient, le document doit seulement exister)
+     */
+    public static boolean isAnyVersion(String version) {
+        return version.trim().equals("*");
+    }
+
+    /**
+     * Convertit une version (éventuellement issue d'un en-tête If-Match) en Timestamp
+     */
+    public static Timestamp parseVersion(String version) {
+        String value = version.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Timestamp.parseTimestamp(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Version de document invalide : " + version);
+        }
+    }
+
+    /**
+     * Extrait le code d'erreur gRPC d'un échec d'écriture Firestore
+     */
+    static StatusCode.Code statusCode(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException) {
+                return apiException.getStatusCode().getCode();
+            }
+            if (cause instanceof FirestoreException firestoreException && firestoreException.getStatus() != null) {
+                return StatusCode.Code.valueOf(firestoreException.getStatus().getCode().name());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtre d'existence des clés (ID de recettes, noms d'utilisateur, emails, slugs de catégories).
+ * Un filtre de Bloom par espace de clés, tenu à jour à chaque écriture et reconstruit périodiquement,
+ * écarte sans lecture Firestore les clés qui n'existent certainement pas ; un petit cache négatif
+ * à durée de vie courte mémorise les absences récentes confirmées par Firestore.
+ * Les écritures d'une autre instance ne sont vues qu'à la reconstruction suivante : hors déploiement
+ * mono-instance, les filtres ne sont ni construits ni consultés, et seules les absences d'ID de recettes
+ * (générés, jamais cherchés avant leur création) sont mises en cache.
+ */
+@Component
+public class ExistenceFilter {
+
+    /**
+     * Espaces de clés filtrés : collection, champ indexé (null pour l'ID du document), et clés générées
+     * par le serveur ; les autres (noms, emails, slugs) sont souvent cherchés juste avant d'être créés
+     */
+    public enum KeySpace {
+        RECIPE_IDS("recipes", null, true),
+        USERNAMES("users", "username", false),
+        EMAILS("users", "email", false),
+        CATEGORY_SLUGS("categories", "slug", false);
+
+        private final String collection;
+        private final String field;
+        private final boolean generated;
+
+        KeySpace(String collection, String field, boolean generated) {
+            this.collection = collection;
+            this.field = field;
+            this.generated = generated;
+        }
+    }
+
+    /**
+     * Lecture Firestore d'une clé
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        Optional<T> load() throws ExecutionException, InterruptedException;
+    }
+
+    private static final int MAX_NEGATIVE_ENTRIES = 100_000;
+
+    @Autowired
+    private Firestore firestore;
+
+    @Value("${recipe-app.existence-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recipe-app.existence-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${recipe-app.existence-filter.min-capacity:10000}")
+    private long minCapacity;
+
+    @Value("${recipe-app.existence-filter.single-instance:${recipe-app.single-instance:false}}")
+    private boolean singleInstance;
+
+    @Value("${recipe-app.existence-filter.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    @Value("${recipe-app.scan.page-size:300}")
+    private int pageSize;
+
+    private final Map<KeySpace, Space> spaces = new EnumMap<>(KeySpace.class);
+
+    public ExistenceFilter() {
+        for (KeySpace keySpace : KeySpace.values()) {
+            spaces.put(keySpace, new Space());
+        }
+    }
+
+    /**
+     * Lit une clé via le loader, sauf si elle est certainement absente ;
+     * une absence confirmée par Firestore est mémorisée dans le cache négatif
+     */
+    public <T> Optional<T> lookup(KeySpace keySpace, String key, Loader<T> loader) throws ExecutionException, InterruptedException {
+        if (!mightExist(keySpace, key)) {
+            return Optional.empty();
+        }
+
+        Space space = spaces.get(keySpace);
+        long writeStamp = space.writes.get();
+        Optional<T> result = loader.load();
+        // Une clé choisie (nom, email, slug) peut être créée juste après sur une autre instance
+        if (result.isEmpty() && (singleInstance || keySpace.generated)) {
+            space.recordMiss(normalize(keySpace, key), writeStamp, negativeTtlSeconds);
+        }
+        return result;
+    }
+
+    /**
+     * Retourne false si la clé n'existe certainement pas (aucune lecture Firestore) ;
+     * hors mono-instance, seules les absences confirmées par Firestore comptent
+     */
+    public boolean mightExist(KeySpace keySpace, String key) {
+        if (!enabled || key == null) {
+            return true;
+        }
+        return spaces.get(keySpace).mightContain(normalize(keySpace, key), singleInstance);
+    }
+
+    /**
+     * Enregistre une clé écrite (à appeler après le commit)
+     */
+    public void recordWrite(KeySpace keySpace, String key) {
+        if (key != null) {
+            spaces.get(keySpace).recordWrite(normalize(keySpace, key));
+        }
+    }
+
+    /**
+     * Retire les absences expirées du cache négatif, hors des requêtes
+     */
+    @Scheduled(fixedDelayString = "${recipe-app.cache-eviction-interval-ms:60000}")
+    public void evictExpiredMisses() {
+        long now = System.nanoTime();
+        for (Space space : spaces.values()) {
+            space.negative.values().removeIf(expiresAt -> now - expiresAt >= 0);
+        }
+    }
+
+    /**
+     * Reconstruit tous les filtres depuis Firestore, ce qui purge aussi les clés supprimées
+     */
+    @Scheduled(initialDelayString = "${recipe-app.existence-filter.initial-delay-ms:0}",
+               fixedDelayString = "${recipe-app.existence-filter.rebuild-interval-ms:600000}")
+    public void rebuildAll() {
+        // Filtre non consulté hors mono-instance : aucun parcours (lectures facturées) pour rien
+        if (!enabled || !singleInstance) {
+            return;
+        }
+        for (KeySpace keySpace : KeySpace.values()) {
+            try {
+                long count = rebuild(keySpace);
+                System.out.println("🔎 Filtre d'existence " + keySpace + " reconstruit : " + count + " clés");
+            } catch (ExecutionException | RuntimeException e) {
+                System.err.println("❌ Reconstruction du filtre " + keySpace + " impossible : " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long rebuild(KeySpace keySpace) throws ExecutionException, InterruptedException {
+        Space space = spaces.get(keySpace);
+        BloomFilter filter = new BloomFilter(Math.max(minCapacity, space.lastCount * 2), falsePositiveRate);
+        // Les écritures faites pendant le parcours sont aussi ajoutées au nouveau filtre
+        space.building = filter;
+
+        long count = 0;
+        try {
+            Query query = firestore.collection(keySpace.collection)
+                    .select(keySpace.field == null ? FieldPath.documentId() : FieldPath.of(keySpace.field))
+                    .orderBy(FieldPath.documentId())
+                    .limit(pageSize);
+            QueryDocumentSnapshot last = null;
+            while (true) {
+                QuerySnapshot page = (last == null ? query : query.startAfter(last)).get().get();
+                List<QueryDocumentSnapshot> documents = page.getDocuments();
+                for (QueryDocumentSnapshot document : documents) {
+                    String key = keySpace.field == null ? document.getId() : document.getString(keySpace.field);
+                    if (key != null) {
+                        filter.put(normalize(keySpace, key));
+                        count++;
+                    }
+                }
+                if (documents.size() < pageSize) {
+                    break;
+                }
+                last = documents.get(documents.size() - 1);
+            }
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            space.building = null;
+            throw e;
+        }
+
+        space.install(filter, count);
+        return count;
+    }
+
+    private static String normalize(KeySpace keySpace, String key) {
+        String value = key.trim();
+        return keySpace == KeySpace.EMAILS ? value.toLowerCase() : value;
+    }
+
+    /**
+     * État d'un espace de clés : filtre courant (null tant qu'il n'est pas construit) et cache négatif
+     */
+    private static final class Space {
+        private volatile BloomFilter current;
+        private volatile BloomFilter building;
+        private volatile long lastCount;
+        // Incrémenté à chaque écriture : une absence lue avant une écriture n'est pas mise en cache
+        private final AtomicLong writes = new AtomicLong();
+        private final ConcurrentHashMap<String, Long> negative = new ConcurrentHashMap<>();
+
+        boolean mightContain(String key, boolean trustFilter) {
+            Long expiresAt = negative.get(key);
+            if (expiresAt != null) {
+                if (System.nanoTime() - expiresAt < 0) {
+                    return false;
+                }
+                negative.remove(key, expiresAt);
+            }
+            // Une clé écrite par une autre instance depuis la reconstruction manque au filtre
+            BloomFilter filter = current;
+            return !trustFilter || filter == null || filter.mightContain(key);
+        }
+
+        void recordWrite(String key) {
+            writes.incrementAndGet();
+            negative.remove(key);
+            // Filtre en construction d'abord : s'il est installé entre-temps, il devient le filtre courant
+            BloomFilter filter = building;
+            if (filter != null) {
+                filter.put(key);
+            }
+            filter = current;
+            if (filter != null) {
+                filter.put(key);
+            }
+        }
+
+        void recordMiss(String key, long writeStamp, long ttlSeconds) {
+            // Cache plein : l'absence n'est pas retenue jusqu'à la prochaine purge
+            if (negative.size() >= MAX_NEGATIVE_ENTRIES && !negative.containsKey(key)) {
+                return;
+            }
+            long now = System.nanoTime();
+            negative.put(key, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+            // Une écriture arrivée pendant la lecture rend l'absence potentiellement fausse
+            if (writes.get() != writeStamp) {
+                negative.remove(key);
+            }
+        }
+
+        synchronized void install(BloomFilter filter, long count) {
+            current = filter;
+            building = null;
+            lastCount = count;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.recipeapp.repository;
+
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Repository pour les favoris des utilisateurs.
+ * Chaque favori est matérialisé par un document users/{userId}/favorites/{recipeId} ;
+ * la liste favoriteRecipeIds de l'utilisateur et le compteur favoriteCount de la recette
+ * sont mis à jour dans le même batch, sans aucune lecture.
+ */
+@Repository
+public class FavoriteRepository {
+
+    private static final String USERS_COLLECTION = "users";
+    private static final String RECIPES_COLLECTION = "recipes";
+    private static final String FAVORITES_SUBCOLLECTION = "favorites";
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private VersionCache versionCache;
+
+    @Autowired
+    private OffHeapRecipeCatalog catalog;
+
+    /**
+     * Ajoute une recette aux favoris d'un utilisateur
+     * Retourne false si la recette était déjà en favori ou si l'utilisateur/la recette n'existe pas
+     */
+    public boolean addFavorite(String userId, String recipeId) throws ExecutionException, InterruptedException {
+        DocumentReference userRef = firestore.collection(USERS_COLLECTION).document(userId);
+        DocumentReference recipeRef = firestore.collection(RECIPES_COLLECTION).document(recipeId);
+
+        WriteBatch batch = firestore.batch();
+        // create() échoue si le favori existe déjà : le batch entier est alors annulé
+        batch.create(userRef.collection(FAVORITES_SUBCOLLECTION).document(recipeId),
+                Map.of("createdAt", FieldValue.serverTimestamp()));
+        batch.update(userRef, "favoriteRecipeIds", FieldValue.arrayUnion(recipeId));
+        batch.update(recipeRef, "favoriteCount", FieldValue.increment(1));
+
+        try {
+            batch.commit().get();
+            invalidateVersions(userId, recipeId);
+            return true;
+        } catch (ExecutionException e) {
+            StatusCode.Code code = DocumentPatch.statusCode(e);
+            if (code == StatusCode.Code.ALREADY_EXISTS || code == StatusCode.Code.NOT_FOUND) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Retire une recette des favoris d'un utilisateur
+     * Retourne false si la recette n'était pas en favori
+     */
+    public boolean removeFavorite(String userId, String recipeId) throws ExecutionException, InterruptedException {
+        DocumentReference userRef = firestore.collection(USERS_COLLECTION).document(userId);
+        DocumentReference recipeRef = firestore.collection(RECIPES_COLLECTION).document(recipeId);
+
+        WriteBatch batch = firestore.batch();
+        // update() échoue si le favori n'existe pas (le batch entier est alors annulé) :
+        // le compteur n'est décrémenté qu'une seule fois
+        DocumentReference favoriteRef = userRef.collection(FAVORITES_SUBCOLLECTION).document(recipeId);
+        batch.update(favoriteRef, "removedAt", FieldValue.serverTimestamp());
+        batch.delete(favoriteRef);
+        batch.update(userRef, "favoriteRecipeIds", FieldValue.arrayRemove(recipeId));
+        batch.update(recipeRef, "favoriteCount", FieldValue.increment(-1));
+
+        try {
+            batch.commit().get();
+            invalidateVersions(userId, recipeId);
+            return true;
+        } catch (ExecutionException e) {
+            if (DocumentPatch.statusCode(e) != StatusCode.Code.NOT_FOUND) {
+                throw e;
+            }
+        }
+
+        // Favori antérieur aux documents favorites/{recipeId} : il n'a jamais été compté,
+        // on se contente de le retirer de la liste
+        try {
+            userRef.update("favoriteRecipeIds", FieldValue.arrayRemove(recipeId)).get();
+            versionCache.invalidate(USERS_COLLECTION, userId);
+        } catch (ExecutionException e) {
+            if (DocumentPatch.statusCode(e) != StatusCode.Code.NOT_FOUND) {
+                throw e;
+            }
+        }
+        return false;
+    }
+
+    private void invalidateVersions(String userId, String recipeId) {
+        versionCache.invalidate(USERS_COLLECTION, userId);
+        versionCache.invalidate(RECIPES_COLLECTION, recipeId);
+        catalog.refresh(recipeId);
+    }
+}
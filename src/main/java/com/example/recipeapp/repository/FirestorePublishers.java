@@ -0,0 +1,67 @@
+package com.example.recipeapp.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.common.util.concurrent.MoreExecutors;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Adaptation des appels Firestore en publishers Reactor, sans thread bloqué en attente.
+ * Les publishers sont froids : l'appel n'est lancé qu'à l'abonnement et annulé avec lui.
+ * Les requêtes sont lues page par page à la demande de l'abonné (backpressure) :
+ * la page suivante n'est lue qu'une fois la précédente consommée.
+ */
+final class FirestorePublishers {
+
+    private FirestorePublishers() {
+    }
+
+    /**
+     * Résultat d'un appel Firestore ; vide si la valeur est nulle
+     */
+    static <T> Mono<T> mono(Supplier<ApiFuture<T>> call) {
+        return Mono.create(sink -> {
+            ApiFuture<T> future = call.get();
+            sink.onCancel(() -> future.cancel(false));
+            ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    sink.success(value);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    sink.error(t);
+                }
+            }, MoreExecutors.directExecutor());
+        });
+    }
+
+    /**
+     * Documents d'une requête, lus par pages de pageSize selon la demande
+     */
+    static <T> Flux<T> pages(Query query, int pageSize, Function<QueryDocumentSnapshot, T> mapper) {
+        return page(query, pageSize, null)
+                .expand(documents -> documents.size() < pageSize
+                        ? Mono.empty()
+                        : page(query, pageSize, documents.get(documents.size() - 1)))
+                .concatMapIterable(documents -> documents, 1)
+                .map(mapper);
+    }
+
+    private static Mono<List<QueryDocumentSnapshot>> page(Query query, int pageSize, QueryDocumentSnapshot after) {
+        return mono(() -> {
+            Query next = query.limit(pageSize);
+            return (after == null ? next : next.startAfter(after)).get();
+        }).map(QuerySnapshot::getDocuments);
+    }
+}
@@ -0,0 +1,403 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Catalogue des en-têtes de recettes hors tas, qui sert les listes (publiées, par catégorie,
+ * par auteur, mieux notées...) sans requête Firestore ni graphe d'objets Recipe résident :
+ * seules les recettes retournées sont matérialisées.
+ * Tenu à jour par RecipeRepository à chaque écriture et reconstruit périodiquement ;
+ * les écritures d'une autre instance ne sont vues qu'à la reconstruction suivante : le catalogue
+ * n'est donc chargé qu'en déploiement mono-instance (recipe-app.single-instance), sinon tout passe par Firestore.
+ */
+@Component
+public class OffHeapRecipeCatalog {
+
+    private static final String COLLECTION_NAME = "recipes";
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private PartitionedScanner scanner;
+
+    @Autowired
+    private StringDictionary dictionary;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.off-heap-catalog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recipe-app.single-instance:false}")
+    private boolean singleInstance;
+
+    @Value("${recipe-app.off-heap-catalog.arena-bytes:8388608}")
+    private int arenaBytes;
+
+    // Vide : ByteBuffer directs ; sinon arènes mappées sur des fichiers temporaires de ce répertoire
+    @Value("${recipe-app.off-heap-catalog.directory:}")
+    private String directory;
+
+    @Value("${recipe-app.off-heap-catalog.compaction-ratio:0.5}")
+    private double compactionRatio;
+
+    @Value("${recipe-app.migrations.partitions:8}")
+    private int partitions;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // null tant que le premier chargement n'est pas terminé : les lectures passent alors par Firestore
+    private RecipeRecordStore current;
+    private RecipeRecordStore building;
+    private Set<String> removedWhileBuilding;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("recipe.catalog.recipes", this, catalog -> catalog.stats().recipes()).register(meterRegistry);
+        Gauge.builder("recipe.catalog.bytes", this, catalog -> catalog.stats().liveBytes()).tag("state", "live").register(meterRegistry);
+        Gauge.builder("recipe.catalog.bytes", this, catalog -> catalog.stats().deadBytes()).tag("state", "dead").register(meterRegistry);
+        Gauge.builder("recipe.catalog.bytes", this, catalog -> catalog.stats().capacityBytes()).tag("state", "reserved").register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return read(() -> current != null);
+    }
+
+    /**
+     * Relit l'en-tête d'une recette après une écriture (commit terminé) et met à jour le catalogue
+     * En cas d'échec, le catalogue reste en retard jusqu'à la reconstruction suivante
+     */
+    public void refresh(String id) {
+        if (!read(() -> current != null || building != null)) {
+            return;
+        }
+        try {
+            DocumentSnapshot document = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            Recipe recipe = document.exists() ? document.toObject(Recipe.class) : null;
+            if (recipe == null) {
+                remove(id);
+                return;
+            }
+            recipe.setId(document.getId());
+            recipe.setVersion(RecipeRepository.contentVersion(document).toString());
+            put(recipe);
+        } catch (ExecutionException e) {
+            System.err.println("❌ Mise à jour du catalogue impossible pour la recette " + id + " : " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Enregistre l'en-tête d'une recette ; une version plus ancienne que celle connue est ignorée
+     */
+    public void put(Recipe header) {
+        write(() -> {
+            if (building != null) {
+                removedWhileBuilding.remove(header.getId());
+                building.put(header);
+            }
+            if (current != null) {
+                current.put(header);
+                compactIfNeeded();
+            }
+        });
+    }
+
+    public void remove(String id) {
+        write(() -> {
+            if (building != null) {
+                removedWhileBuilding.add(id);
+                building.remove(id);
+            }
+            if (current != null) {
+                current.remove(id);
+                compactIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Compte une vue sur place, sans changer la version ; l'incrément est atomique, le verrou partagé suffit
+     */
+    public void recordView(String id) {
+        read(() -> {
+            if (building != null) {
+                building.incrementViewCount(id);
+            }
+            if (current != null) {
+                current.incrementViewCount(id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Recharge tout le catalogue depuis Firestore, ce qui purge aussi les recettes supprimées
+     */
+    @Scheduled(initialDelayString = "${recipe-app.off-heap-catalog.initial-delay-ms:0}",
+               fixedDelayString = "${recipe-app.off-heap-catalog.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        if (!enabled || !singleInstance) {
+            return;
+        }
+        RecipeRecordStore store = new RecipeRecordStore(dictionary, arenaBytes, directory.isBlank() ? null : Path.of(directory));
+        // Les écritures faites pendant le parcours sont aussi appliquées au nouveau catalogue
+        write(() -> {
+            building = store;
+            removedWhileBuilding = new HashSet<>();
+        });
+
+        try {
+            scanner.scan(COLLECTION_NAME, partitions, document -> {
+                Recipe recipe = document.toObject(Recipe.class);
+                recipe.setId(document.getId());
+                recipe.setVersion(RecipeRepository.contentVersion(document).toString());
+                return recipe;
+            }, recipe -> write(() -> {
+                if (!removedWhileBuilding.contains(recipe.getId())) {
+                    store.put(recipe);
+                }
+            }), null);
+        } catch (ExecutionException | RuntimeException e) {
+            write(() -> building = null);
+            System.err.println("❌ Chargement du catalogue de recettes impossible : " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            write(() -> building = null);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        write(() -> {
+            current = store;
+            building = null;
+            removedWhileBuilding = null;
+        });
+        CatalogStats stats = stats();
+        System.out.println("📦 Catalogue de recettes chargé hors tas : " + stats.recipes() + " recettes, "
+                + stats.bytesPerRecipe() + " octets/recette, " + stats.capacityBytes() + " octets réservés");
+    }
+
+    /**
+     * Recettes publiées retenues par le filtre, dans l'ordre donné (null : ordre quelconque), au plus limit
+     * Retourne null si le catalogue n'est pas encore chargé
+     */
+    List<Recipe> query(Predicate<RecipeView> filter, Comparator<RecipeView> order, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (current == null) {
+                return null;
+            }
+            RecipeView view = new RecipeView(current);
+            long[] matches;
+            int count;
+            if (order == null) {
+                matches = new long[Math.min(limit, current.size())];
+                count = 0;
+                for (long address : current.addresses()) {
+                    if (count == matches.length) {
+                        break;
+                    }
+                    if (view.moveTo(address).isPublished() && filter.test(view)) {
+                        matches[count++] = address;
+                    }
+                }
+            } else {
+                RecipeView left = new RecipeView(current);
+                RecipeView right = new RecipeView(current);
+                TopAddresses top = new TopAddresses(Math.min(limit, current.size()),
+                        (a, b) -> order.compare(left.moveTo(a), right.moveTo(b)));
+                for (long address : current.addresses()) {
+                    if (view.moveTo(address).isPublished() && filter.test(view)) {
+                        top.offer(address);
+                    }
+                }
+                matches = top.sorted();
+                count = matches.length;
+            }
+
+            List<Recipe> recipes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                recipes.add(view.moveTo(matches[i]).toRecipe());
+            }
+            return recipes;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Filtres par catégorie et par auteur, comparant des ordinaux ; une chaîne absente du dictionnaire
+     * (plein) n'est comparée qu'aux enregistrements qui la portent en clair
+     */
+    Predicate<RecipeView> inCategory(String categoryId) {
+        int ordinal = dictionary.find(categoryId);
+        return ordinal >= 0
+                ? view -> view.categoryOrdinal() == ordinal
+                : view -> view.categoryOrdinal() == RecipeRecordStore.INLINE_ORDINAL && view.categoryId().equals(categoryId);
+    }
+
+    Predicate<RecipeView> byAuthor(String authorId) {
+        int ordinal = dictionary.find(authorId);
+        return ordinal >= 0
+                ? view -> view.authorOrdinal() == ordinal
+                : view -> view.authorOrdinal() == RecipeRecordStore.INLINE_ORDINAL && view.authorId().equals(authorId);
+    }
+
+    /**
+     * Ordre décroissant sur une valeur numérique, les valeurs NaN étant exclues par le filtre
+     */
+    static Comparator<RecipeView> descending(ToDoubleFunction<RecipeView> value) {
+        return (a, b) -> Double.compare(value.applyAsDouble(b), value.applyAsDouble(a));
+    }
+
+    static final Comparator<RecipeView> NEWEST_FIRST = (a, b) -> b.compareCreatedAt(a);
+
+    public CatalogStats stats() {
+        return read(() -> current == null ? new CatalogStats(0, 0, 0, 0)
+                : new CatalogStats(current.size(), current.liveBytes(), current.deadBytes(), current.capacityBytes()));
+    }
+
+    private void compactIfNeeded() {
+        long total = current.liveBytes() + current.deadBytes();
+        if (current.deadBytes() >= arenaBytes && current.deadBytes() > total * compactionRatio) {
+            current = current.compact();
+        }
+    }
+
+    private <T> T read(Supplier<T> action) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Ordre sur des adresses d'enregistrements, sans boxing
+     */
+    @FunctionalInterface
+    interface AddressOrder {
+        int compare(long a, long b);
+    }
+
+    /**
+     * Les capacity premières adresses selon un ordre, dans un tas borné dont la racine est la moins bonne :
+     * O(n log capacity) comparaisons et aucune allocation par recette
+     */
+    static final class TopAddresses {
+        private final long[] heap;
+        private final AddressOrder order;
+        private int size;
+
+        TopAddresses(int capacity, AddressOrder order) {
+            this.heap = new long[capacity];
+            this.order = order;
+        }
+
+        void offer(long address) {
+            if (size < heap.length) {
+                heap[size] = address;
+                siftUp(size++);
+            } else if (size > 0 && order.compare(address, heap[0]) < 0) {
+                heap[0] = address;
+                siftDown(0, size);
+            }
+        }
+
+        /**
+         * Adresses retenues, de la meilleure à la moins bonne (tri par tas, sur place)
+         */
+        long[] sorted() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return Arrays.copyOf(heap, size);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (order.compare(heap[i], heap[parent]) <= 0) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < end && order.compare(heap[left], heap[worst]) > 0) {
+                    worst = left;
+                }
+                if (right < end && order.compare(heap[right], heap[worst]) > 0) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    /**
+     * Occupation du catalogue : enregistrements vivants, octets vivants et morts, arènes réservées
+     */
+    public record CatalogStats(long recipes, long liveBytes, long deadBytes, long capacityBytes) {
+        public long bytesPerRecipe() {
+            return recipes == 0 ? 0 : liveBytes / recipes;
+        }
+    }
+}
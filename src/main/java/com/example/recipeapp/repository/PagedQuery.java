@@ -0,0 +1,78 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Résultats d'une requête Firestore lus page par page, à mesure de l'itération :
+ * une seule page est en mémoire à la fois et la première n'est lue qu'au premier hasNext().
+ * Chaque appel à iterator() relance la requête depuis le début.
+ */
+final class PagedQuery<T> implements Iterable<T> {
+
+    private final Query query;
+    private final int pageSize;
+    private final Function<QueryDocumentSnapshot, T> mapper;
+
+    PagedQuery(Query query, int pageSize, Function<QueryDocumentSnapshot, T> mapper) {
+        this.query = query;
+        this.pageSize = pageSize;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private List<QueryDocumentSnapshot> page = List.of();
+            private int position;
+            private QueryDocumentSnapshot last;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                fetch();
+                return position < page.size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mapper.apply(page.get(position++));
+            }
+
+            private void fetch() {
+                Query next = query.limit(pageSize);
+                if (last != null) {
+                    next = next.startAfter(last);
+                }
+                try {
+                    page = next.get().get().getDocuments();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Lecture de la page suivante impossible : " + e.getMessage(), e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Lecture de la page suivante interrompue", e);
+                }
+                position = 0;
+                exhausted = page.size() < pageSize;
+                if (!page.isEmpty()) {
+                    last = page.get(page.size() - 1);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.firestore.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parcours parallèle d'une collection Firestore complète, découpée en partitions
+ * traitées simultanément sur un pool de threads borné.
+ * Les documents sont lus page par page et transmis au callback au fil de l'eau,
+ * sans jamais charger la collection entière en mémoire.
+ */
+@Component
+public class PartitionedScanner {
+
+    @Autowired
+    private Firestore firestore;
+
+    @Value("${recipe-app.scan.threads:0}")
+    private int threads;
+
+    @Value("${recipe-app.scan.page-size:300}")
+    private int pageSize;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "firestore-scan-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Parcourt toute la collection en parallèle.
+     * Le callback est appelé depuis plusieurs threads et doit donc être thread-safe.
+     */
+    public <T> ScanProgress scan(String collection, int partitionCount,
+                                 Function<QueryDocumentSnapshot, T> mapper,
+                                 Consumer<T> callback,
+                                 ScanProgressListener listener) throws ExecutionException, InterruptedException {
+        List<Query> partitions = new ArrayList<>();
+        for (QueryPartition partition : firestore.collectionGroup(collection)
+                .getPartitions(Math.max(1, partitionCount)).get()) {
+            partitions.add(partition.createQuery());
+        }
+
+        ScanProgress progress = new ScanProgress(partitions.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (Query partition : partitions) {
+            futures.add(executor.submit(() -> {
+                scanPartition(partition, mapper, callback, listener, progress);
+                return null;
+            }));
+        }
+
+        ExecutionException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return progress;
+    }
+
+    private <T> void scanPartition(Query partition,
+                                   Function<QueryDocumentSnapshot, T> mapper,
+                                   Consumer<T> callback,
+                                   ScanProgressListener listener,
+                                   ScanProgress progress) throws ExecutionException, InterruptedException {
+        QueryDocumentSnapshot last = null;
+        while (true) {
+            Query page = partition.limit(pageSize);
+            if (last != null) {
+                page = page.startAfter(last);
+            }
+
+            List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                callback.accept(mapper.apply(document));
+            }
+            progress.documentsProcessed.addAndGet(documents.size());
+
+            if (documents.size() < pageSize) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+            notify(listener, progress);
+        }
+        progress.partitionsCompleted.incrementAndGet();
+        notify(listener, progress);
+    }
+
+    private void notify(ScanProgressListener listener, ScanProgress progress) {
+        if (listener != null) {
+            listener.onProgress(progress);
+        }
+    }
+
+    /**
+     * Écouteur de progression d'un parcours
+     */
+    @FunctionalInterface
+    public interface ScanProgressListener {
+        void onProgress(ScanProgress progress);
+    }
+
+    /**
+     * Avancement d'un parcours partitionné
+     */
+    public static class ScanProgress {
+        private final int totalPartitions;
+        private final AtomicInteger partitionsCompleted = new AtomicInteger();
+        private final AtomicLong documentsProcessed = new AtomicLong();
+
+        ScanProgress(int totalPartitions) {
+            this.totalPartitions = totalPartitions;
+        }
+
+        public int getTotalPartitions() { return totalPartitions; }
+        public int getPartitionsCompleted() { return partitionsCompleted.get(); }
+        public long getDocumentsProcessed() { return documentsProcessed.get(); }
+
+        public boolean isDone() {
+            return partitionsCompleted.get() >= totalPartitions;
+        }
+
+        @Override
+        public String toString() {
+            return "ScanProgress{" +
+                    "partitions=" + partitionsCompleted.get() + "/" + totalPartitions +
+                    ", documents=" + documentsProcessed.get() +
+                    '}';
+        }
+    }
+}
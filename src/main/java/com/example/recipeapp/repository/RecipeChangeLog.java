@@ -0,0 +1,207 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Journal des changements de recettes pour la synchronisation différentielle.
+ * Chaque écriture de contenu date l'en-tête (updatedAt, heure du serveur) et chaque suppression laisse
+ * une pierre tombale datée, conservée retention-days jours ; au-delà, un client doit tout resynchroniser.
+ * Deux écouteurs (dernier changement de chaque collection) tiennent un filigrane en mémoire
+ * qui permet de répondre "rien n'a changé" sans lecture.
+ */
+@Component
+public class RecipeChangeLog {
+
+    static final String RECIPES = "recipes";
+    static final String TOMBSTONES = "recipe_tombstones";
+    static final String UPDATED_AT = "updatedAt";
+
+    // Ordre du journal, celui des requêtes changesAfter : date du changement puis ID
+    static final Comparator<DocumentSnapshot> ORDER =
+            Comparator.comparing((DocumentSnapshot document) -> document.getTimestamp(UPDATED_AT),
+                            Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(DocumentSnapshot::getId);
+
+    @Autowired
+    private Firestore firestore;
+
+    @Value("${recipe-app.delta-sync.watermark:true}")
+    private boolean watermarkEnabled;
+
+    @Value("${recipe-app.delta-sync.tombstone-retention-days:30}")
+    private long retentionDays;
+
+    @Value("${recipe-app.scan.page-size:300}")
+    private int pageSize;
+
+    // Dernier changement connu de chaque collection ; null tant que l'écouteur n'a pas répondu
+    private final AtomicReference<Timestamp> latestRecipe = new AtomicReference<>();
+    private final AtomicReference<Timestamp> latestTombstone = new AtomicReference<>();
+    private ListenerRegistration recipeListener;
+    private ListenerRegistration tombstoneListener;
+
+    @PostConstruct
+    void init() {
+        if (watermarkEnabled) {
+            recipeListener = listenLatest(RECIPES, latestRecipe);
+            tombstoneListener = listenLatest(TOMBSTONES, latestTombstone);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (recipeListener != null) {
+            recipeListener.remove();
+        }
+        if (tombstoneListener != null) {
+            tombstoneListener.remove();
+        }
+    }
+
+    /**
+     * Ajoute au batch la pierre tombale d'une recette supprimée
+     */
+    void recordDeletion(WriteBatch batch, String id) {
+        batch.set(firestore.collection(TOMBSTONES).document(id), Map.of(UPDATED_AT, FieldValue.serverTimestamp()));
+    }
+
+    /**
+     * Ajoute au batch la datation serveur d'une écriture de contenu
+     */
+    void recordUpdate(WriteBatch batch, DocumentReference headerRef) {
+        batch.update(headerRef, UPDATED_AT, FieldValue.serverTimestamp());
+    }
+
+    /**
+     * Vrai si aucun changement n'a eu lieu après ce jeton, d'après le filigrane (sans lecture) ;
+     * faux si le filigrane est inconnu
+     */
+    public boolean unchangedSince(SyncToken token) {
+        Timestamp recipe = latestRecipe.get();
+        Timestamp tombstone = latestTombstone.get();
+        if (recipe == null || tombstone == null) {
+            return false;
+        }
+        return notAfter(recipe, token) && notAfter(tombstone, token);
+    }
+
+    private static boolean notAfter(Timestamp latest, SyncToken token) {
+        int comparison = latest.compareTo(token.time());
+        // Jeton de page coupée : d'autres documents peuvent partager la date du dernier transmis
+        return token.id() == null ? comparison <= 0 : comparison < 0;
+    }
+
+    /**
+     * Vrai si des pierres tombales postérieures au jeton ont pu être purgées
+     */
+    public boolean isExpired(SyncToken token) {
+        return token.time().compareTo(retentionHorizon()) < 0;
+    }
+
+    /**
+     * Requête des changements d'une collection postérieurs au jeton, dans l'ordre (updatedAt, id)
+     */
+    Query changesAfter(CollectionReference collection, SyncToken since, int limit) {
+        Query query = collection.orderBy(UPDATED_AT).orderBy(FieldPath.documentId()).limit(limit);
+        if (since == null) {
+            return query;
+        }
+        // Curseur partiel : après tous les documents de cette date
+        return since.id() == null ? query.startAfter(since.time()) : query.startAfter(since.time(), since.id());
+    }
+
+    /**
+     * Fusionne dans l'ordre du journal les changements lus dans les deux collections et garde les limit premiers
+     * D'autres changements peuvent suivre si la fusion est tronquée ou si une des requêtes a rempli sa limite
+     */
+    static <T> ChangePage<T> merge(List<T> recipes, List<T> tombstones, int limit, Comparator<? super T> order) {
+        List<T> entries = new ArrayList<>(recipes.size() + tombstones.size());
+        entries.addAll(recipes);
+        entries.addAll(tombstones);
+        entries.sort(order);
+        boolean hasMore = entries.size() > limit || recipes.size() >= limit || tombstones.size() >= limit;
+        return new ChangePage<>(entries.size() > limit ? entries.subList(0, limit) : entries, hasMore);
+    }
+
+    /**
+     * Changements à transmettre, et indication que le curseur doit partir du dernier d'entre eux
+     */
+    record ChangePage<T>(List<T> entries, boolean hasMore) {
+    }
+
+    /**
+     * Supprime les pierres tombales plus anciennes que la durée de conservation
+     */
+    @Scheduled(initialDelayString = "${recipe-app.delta-sync.purge-initial-delay-ms:60000}",
+               fixedDelayString = "${recipe-app.delta-sync.purge-interval-ms:86400000}")
+    public void purgeTombstones() {
+        Query expired = firestore.collection(TOMBSTONES)
+                .whereLessThan(UPDATED_AT, retentionHorizon())
+                .orderBy(UPDATED_AT)
+                .limit(pageSize);
+        long count = 0;
+        try {
+            while (true) {
+                List<QueryDocumentSnapshot> documents = expired.get().get().getDocuments();
+                if (documents.isEmpty()) {
+                    break;
+                }
+                WriteBatch batch = firestore.batch();
+                documents.forEach(document -> batch.delete(document.getReference()));
+                batch.commit().get();
+                count += documents.size();
+            }
+            if (count > 0) {
+                System.out.println("🪦 Pierres tombales de recettes purgées : " + count);
+            }
+        } catch (ExecutionException | RuntimeException e) {
+            System.err.println("❌ Purge des pierres tombales impossible : " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Timestamp retentionHorizon() {
+        Timestamp now = Timestamp.now();
+        return Timestamp.ofTimeSecondsAndNanos(now.getSeconds() - TimeUnit.DAYS.toSeconds(retentionDays), now.getNanos());
+    }
+
+    private ListenerRegistration listenLatest(String collection, AtomicReference<Timestamp> latest) {
+        Query query = firestore.collection(collection).orderBy(UPDATED_AT, Query.Direction.DESCENDING).limit(1);
+        return query.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                // Filigrane inconnu : chaque demande interroge Firestore
+                latest.set(null);
+                System.err.println("❌ Écoute du dernier changement de " + collection + " interrompue : " + error.getMessage());
+                return;
+            }
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            Timestamp time = documents.isEmpty() ? Timestamp.MIN_VALUE : documents.get(0).getTimestamp(UPDATED_AT);
+            latest.set(time == null ? Timestamp.MIN_VALUE : time);
+        });
+    }
+}
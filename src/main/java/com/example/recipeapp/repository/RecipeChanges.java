@@ -0,0 +1,12 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+
+import java.util.List;
+
+/**
+ * Instantané d'un écouteur Firestore sur des recettes : état courant du périmètre écouté,
+ * et différences avec l'instantané précédent (recettes ajoutées ou modifiées, identifiants sortis)
+ */
+public record RecipeChanges(List<Recipe> current, List<Recipe> updated, List<String> removed) {
+}
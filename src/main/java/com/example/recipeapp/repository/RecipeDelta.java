@@ -0,0 +1,12 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+
+import java.util.List;
+
+/**
+ * Page du journal des changements : recettes publiées créées ou modifiées, identifiants supprimés
+ * ou dépubliés, jeton à renvoyer pour la suite, et indication d'autres changements à lire immédiatement
+ */
+public record RecipeDelta(List<Recipe> changed, List<String> deleted, String token, boolean hasMore) {
+}
@@ -0,0 +1,321 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+import com.google.cloud.Timestamp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enregistrements binaires compacts des en-têtes de recettes, dans des arènes hors tas
+ * (ByteBuffer direct, ou fichier mappé si un répertoire est configuré).
+ * Une mise à jour ajoute un nouvel enregistrement et marque l'ancien comme mort ; la place
+ * est récupérée par compaction. Non thread-safe : les accès sont protégés par OffHeapRecipeCatalog,
+ * sauf le compteur de vues, incrémenté atomiquement sous le verrou partagé.
+ */
+final class RecipeRecordStore {
+
+    // Partie fixe d'un enregistrement (catégorie et auteur en ordinaux du dictionnaire) ;
+    // suivent les chaînes UTF-8 préfixées par leur longueur, puis les ordinaux des tags
+    // (INLINE_ORDINAL suivi de la chaîne pour un tag refusé par le dictionnaire plein)
+    static final int LENGTH = 0;
+    static final int FLAGS = 4;
+    static final int DIFFICULTY = 5;
+    static final int SERVINGS = 8;
+    static final int PREP_TIME = 12;
+    static final int COOK_TIME = 16;
+    static final int RATING_COUNT = 20;
+    static final int FAVORITE_COUNT = 24;
+    static final int VIEW_COUNT = 28;
+    static final int RATING = 32;
+    static final int CREATED_SECONDS = 40;
+    static final int UPDATED_SECONDS = 48;
+    static final int VERSION_SECONDS = 56;
+    static final int CREATED_NANOS = 64;
+    static final int UPDATED_NANOS = 68;
+    static final int VERSION_NANOS = 72;
+    static final int CATEGORY_ID = 76;
+    static final int AUTHOR_ID = 80;
+    static final int TAG_COUNT = 84;
+    static final int STRINGS = 88;
+
+    // Ordre des chaînes après la partie fixe ; les tags suivent, sous forme d'ordinaux
+    static final int ID = 0;
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 2;
+    static final int IMAGE_URL = 3;
+    // Catégorie et auteur refusés par le dictionnaire plein (null sinon)
+    static final int CATEGORY_INLINE = 4;
+    static final int AUTHOR_INLINE = 5;
+    static final int STRING_COUNT = 6;
+
+    // Début d'enregistrement aligné : les champs int de la partie fixe acceptent un accès atomique
+    static final int ALIGNMENT = 8;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    static final byte LIVE = 1;
+    static final byte PUBLISHED = 2;
+
+    // Valeurs réservées pour les champs absents
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final long NULL_SECONDS = Long.MIN_VALUE;
+    static final int NULL_LENGTH = -1;
+    static final int NULL_ORDINAL = -1;
+    static final int INLINE_ORDINAL = StringDictionary.FULL;
+
+    private final StringDictionary dictionary;
+    private final int arenaBytes;
+    private final Path directory;
+    private final List<ByteBuffer> arenas = new ArrayList<>();
+    private final Map<String, Long> index = new HashMap<>();
+    private int used;
+    private long liveBytes;
+    private long deadBytes;
+    private long capacityBytes;
+
+    RecipeRecordStore(StringDictionary dictionary, int arenaBytes, Path directory) {
+        this.dictionary = dictionary;
+        this.arenaBytes = arenaBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * Ajoute ou remplace l'en-tête d'une recette ; une version plus ancienne que celle stockée est ignorée
+     */
+    void put(Recipe recipe) {
+        Timestamp version = recipe.getVersion() == null ? null : DocumentPatch.parseVersion(recipe.getVersion());
+        Long existing = index.get(recipe.getId());
+        if (existing != null && version != null && isNewer(existing, version)) {
+            return;
+        }
+
+        int categoryOrdinal = ordinal(recipe.getCategoryId());
+        int authorOrdinal = ordinal(recipe.getAuthorId());
+        byte[][] strings = {
+            utf8(recipe.getId()), utf8(recipe.getTitle()), utf8(recipe.getDescription()), utf8(recipe.getImageUrl()),
+            categoryOrdinal == INLINE_ORDINAL ? utf8(recipe.getCategoryId()) : null,
+            authorOrdinal == INLINE_ORDINAL ? utf8(recipe.getAuthorId()) : null
+        };
+        List<String> tags = recipe.getTags();
+        int tagCount = tags == null ? 0 : tags.size();
+        int[] tagOrdinals = new int[tagCount];
+        byte[][] inlineTags = new byte[tagCount][];
+
+        int length = STRINGS + 4 * tagCount;
+        for (byte[] bytes : strings) {
+            length += 4 + (bytes == null ? 0 : bytes.length);
+        }
+        for (int i = 0; i < tagCount; i++) {
+            tagOrdinals[i] = ordinal(tags.get(i));
+            if (tagOrdinals[i] == INLINE_ORDINAL) {
+                inlineTags[i] = utf8(tags.get(i));
+                length += 4 + (inlineTags[i] == null ? 0 : inlineTags[i].length);
+            }
+        }
+
+        long address = allocate(length);
+        ByteBuffer buffer = arena(address);
+        int base = offset(address);
+        byte flags = LIVE;
+        if (recipe.isPublished()) {
+            flags |= PUBLISHED;
+        }
+        buffer.putInt(base + LENGTH, length);
+        buffer.put(base + FLAGS, flags);
+        buffer.put(base + DIFFICULTY, (byte) (recipe.getDifficulty() == null ? 0 : recipe.getDifficulty().ordinal() + 1));
+        buffer.putInt(base + SERVINGS, orNull(recipe.getServings()));
+        buffer.putInt(base + PREP_TIME, orNull(recipe.getPrepTimeMinutes()));
+        buffer.putInt(base + COOK_TIME, orNull(recipe.getCookTimeMinutes()));
+        buffer.putInt(base + RATING_COUNT, orNull(recipe.getRatingCount()));
+        buffer.putInt(base + FAVORITE_COUNT, orNull(recipe.getFavoriteCount()));
+        buffer.putInt(base + VIEW_COUNT, orNull(recipe.getViewCount()));
+        buffer.putDouble(base + RATING, recipe.getRating() == null ? Double.NaN : recipe.getRating());
+        putTimestamp(buffer, base + CREATED_SECONDS, base + CREATED_NANOS, recipe.getCreatedAt());
+        putTimestamp(buffer, base + UPDATED_SECONDS, base + UPDATED_NANOS, recipe.getUpdatedAt());
+        putTimestamp(buffer, base + VERSION_SECONDS, base + VERSION_NANOS, version);
+        buffer.putInt(base + CATEGORY_ID, categoryOrdinal);
+        buffer.putInt(base + AUTHOR_ID, authorOrdinal);
+        buffer.putInt(base + TAG_COUNT, tags == null ? NULL_LENGTH : tagCount);
+
+        int at = base + STRINGS;
+        for (byte[] bytes : strings) {
+            at = putString(buffer, at, bytes);
+        }
+        for (int i = 0; i < tagCount; i++) {
+            buffer.putInt(at, tagOrdinals[i]);
+            at += 4;
+            if (tagOrdinals[i] == INLINE_ORDINAL) {
+                at = putString(buffer, at, inlineTags[i]);
+            }
+        }
+
+        if (existing != null) {
+            kill(existing);
+        }
+        index.put(recipe.getId(), address);
+        liveBytes += length;
+    }
+
+    boolean remove(String id) {
+        Long address = index.remove(id);
+        if (address == null) {
+            return false;
+        }
+        kill(address);
+        return true;
+    }
+
+    /**
+     * Incrémente sur place le nombre de vues, atomiquement : plusieurs lecteurs peuvent compter en même temps
+     */
+    void incrementViewCount(String id) {
+        Long address = index.get(id);
+        if (address == null) {
+            return;
+        }
+        ByteBuffer buffer = arena(address);
+        int at = offset(address) + VIEW_COUNT;
+        int views;
+        do {
+            views = (int) INT.getVolatile(buffer, at);
+        } while (!INT.compareAndSet(buffer, at, views, views == NULL_INT ? 1 : views + 1));
+    }
+
+    Long address(String id) {
+        return index.get(id);
+    }
+
+    Collection<Long> addresses() {
+        return index.values();
+    }
+
+    ByteBuffer arena(long address) {
+        return arenas.get((int) (address >>> 32));
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Copie les enregistrements vivants, contigus, dans de nouvelles arènes
+     */
+    RecipeRecordStore compact() {
+        RecipeRecordStore compacted = new RecipeRecordStore(dictionary, arenaBytes, directory);
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            long address = entry.getValue();
+            ByteBuffer source = arena(address);
+            int base = offset(address);
+            int length = source.getInt(base + LENGTH);
+            byte[] record = new byte[length];
+            source.get(base, record);
+
+            long target = compacted.allocate(length);
+            compacted.arena(target).put(offset(target), record);
+            compacted.index.put(entry.getKey(), target);
+            compacted.liveBytes += length;
+        }
+        return compacted;
+    }
+
+    StringDictionary dictionary() { return dictionary; }
+
+    int size() { return index.size(); }
+
+    long liveBytes() { return liveBytes; }
+
+    long deadBytes() { return deadBytes; }
+
+    long capacityBytes() { return capacityBytes; }
+
+    private long allocate(int length) {
+        int aligned = (length + ALIGNMENT - 1) & -ALIGNMENT;
+        if (arenas.isEmpty() || used + aligned > arenas.get(arenas.size() - 1).capacity()) {
+            int size = Math.max(arenaBytes, aligned);
+            arenas.add(allocateArena(size));
+            capacityBytes += size;
+            used = 0;
+        }
+        long address = ((long) (arenas.size() - 1) << 32) | used;
+        used += aligned;
+        return address;
+    }
+
+    private ByteBuffer allocateArena(int size) {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        // Le fichier est supprimé à la fermeture du canal ; le mapping reste valide jusqu'à sa libération
+        try {
+            Path file = Files.createTempFile(directory, "recipes-", ".arena");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void kill(long address) {
+        ByteBuffer buffer = arena(address);
+        int base = offset(address);
+        buffer.put(base + FLAGS, (byte) (buffer.get(base + FLAGS) & ~LIVE));
+        int length = buffer.getInt(base + LENGTH);
+        liveBytes -= length;
+        deadBytes += length;
+    }
+
+    private boolean isNewer(long address, Timestamp version) {
+        ByteBuffer buffer = arena(address);
+        int base = offset(address);
+        long seconds = buffer.getLong(base + VERSION_SECONDS);
+        if (seconds == NULL_SECONDS) {
+            return false;
+        }
+        return seconds > version.getSeconds()
+                || (seconds == version.getSeconds() && buffer.getInt(base + VERSION_NANOS) > version.getNanos());
+    }
+
+    private static void putTimestamp(ByteBuffer buffer, int secondsAt, int nanosAt, Timestamp timestamp) {
+        buffer.putLong(secondsAt, timestamp == null ? NULL_SECONDS : timestamp.getSeconds());
+        buffer.putInt(nanosAt, timestamp == null ? 0 : timestamp.getNanos());
+    }
+
+    private static int putString(ByteBuffer buffer, int at, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(at, NULL_LENGTH);
+            return at + 4;
+        }
+        buffer.putInt(at, bytes.length);
+        buffer.put(at + 4, bytes);
+        return at + 4 + bytes.length;
+    }
+
+    private int ordinal(String value) {
+        return value == null ? NULL_ORDINAL : dictionary.ordinal(value);
+    }
+
+    private static int orNull(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
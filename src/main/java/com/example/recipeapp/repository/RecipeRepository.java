@@ -1,15 +1,29 @@
 package com.example.recipeapp.repository;
 
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.RecipeBody;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Repository pour la gestion des recettes dans Firestore
@@ -18,12 +32,37 @@ import java.util.concurrent.ExecutionException;
 public class RecipeRepository {
 
     private static final String COLLECTION_NAME = "recipes";
+    private static final String CONTENT_SUBCOLLECTION = "content";
+    private static final String BODY_DOCUMENT = "body";
+    private static final List<String> BODY_FIELDS = List.of("ingredients", "instructions", "nutritionInfo");
+    private static final int PATCH_ATTEMPTS = 3;
 
     @Autowired
     private Firestore firestore;
 
+    @Autowired
+    private PartitionedScanner scanner;
+
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
+    @Autowired
+    private RecipeChangeLog changeLog;
+
+    @Autowired
+    private VersionCache versionCache;
+
+    @Autowired
+    private OffHeapRecipeCatalog catalog;
+
+    @Autowired
+    private StringDictionary dictionary;
+
+    @Value("${recipe-app.streaming.page-size:50}")
+    private int streamingPageSize;
+
     /**
-     * Sauvegarde ou met à jour une recette
+     * Sauvegarde ou met à jour une recette (en-tête et corps dans le même batch)
      */
     public Recipe save(Recipe recipe) throws ExecutionException, InterruptedException {
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
@@ -34,19 +73,98 @@ public class RecipeRepository {
             recipe.setId(docRef.getId());
         }
         
-        ApiFuture<WriteResult> result = recipes.document(recipe.getId()).set(recipe);
-        result.get(); // Attendre la completion
+        DocumentReference headerRef = recipes.document(recipe.getId());
+        WriteBatch batch = firestore.batch();
+        batch.set(headerRef, recipe);
+        changeLog.recordUpdate(batch, headerRef);
+        batch.set(bodyRef(headerRef), RecipeBody.from(recipe));
+        batch.commit().get(); // Attendre la completion
+        versionCache.invalidate(COLLECTION_NAME, recipe.getId());
+        existenceFilter.recordWrite(ExistenceFilter.KeySpace.RECIPE_IDS, recipe.getId());
+        catalog.refresh(recipe.getId());
         return recipe;
     }
 
     /**
-     * Trouve une recette par son ID
+     * Trouve une recette complète par son ID (en-tête et corps lus en un seul aller-retour)
      */
     public Optional<Recipe> findById(String id) throws ExecutionException, InterruptedException {
         if (id == null || id.isEmpty()) {
             return Optional.empty();
         }
         
+        return existenceFilter.lookup(ExistenceFilter.KeySpace.RECIPE_IDS, id, () -> readById(id));
+    }
+
+    private Optional<Recipe> readById(String id) throws ExecutionException, InterruptedException {
+        long stamp = versionCache.stamp();
+        DocumentReference headerRef = firestore.collection(COLLECTION_NAME).document(id);
+        List<DocumentSnapshot> snapshots = firestore.getAll(headerRef, bodyRef(headerRef)).get();
+        Recipe recipe = toFullRecipe(snapshots.get(0), snapshots.get(1));
+        if (recipe != null) {
+            versionCache.put(COLLECTION_NAME, id, recipe.getVersion(), stamp);
+        }
+        return Optional.ofNullable(recipe);
+    }
+
+    /**
+     * Version d'une recette : date de sa dernière modification de contenu (updatedAt, écrit par le serveur)
+     * Les compteurs (vues, favoris) ne la changent pas ; une recette jamais datée garde sa date de création
+     */
+    static Timestamp contentVersion(DocumentSnapshot document) {
+        Timestamp updatedAt = document.getTimestamp(RecipeChangeLog.UPDATED_AT);
+        return updatedAt != null ? updatedAt : document.getCreateTime();
+    }
+
+    /**
+     * Recette complète assemblée depuis son en-tête et son corps, ou null si elle n'existe pas
+     */
+    private Recipe toFullRecipe(DocumentSnapshot header, DocumentSnapshot body) {
+        if (!header.exists()) {
+            return null;
+        }
+        
+        Recipe recipe = header.toObject(Recipe.class);
+        if (recipe != null) {
+            recipe.setId(header.getId());
+            recipe.setVersion(contentVersion(header).toString());
+            // Recette pas encore migrée : le corps est encore dans l'en-tête
+            DocumentSnapshot bodySource = body.exists() ? body : header;
+            RecipeBody recipeBody = bodySource.toObject(RecipeBody.class);
+            if (recipeBody != null) {
+                recipeBody.applyTo(recipe);
+            }
+            internStrings(recipe);
+        }
+        return recipe;
+    }
+
+    /**
+     * Recette complète lue sans bloquer de thread (API réactive)
+     */
+    public Mono<Recipe> monoById(String id) {
+        if (id == null || id.isEmpty() || !existenceFilter.mightExist(ExistenceFilter.KeySpace.RECIPE_IDS, id)) {
+            return Mono.empty();
+        }
+        
+        DocumentReference headerRef = firestore.collection(COLLECTION_NAME).document(id);
+        return FirestorePublishers.mono(() -> firestore.getAll(headerRef, bodyRef(headerRef)))
+                .flatMap(snapshots -> Mono.justOrEmpty(toFullRecipe(snapshots.get(0), snapshots.get(1))));
+    }
+
+    /**
+     * Trouve l'en-tête d'une recette par son ID, sans ingrédients ni instructions
+     */
+    public Optional<Recipe> findHeaderById(String id) throws ExecutionException, InterruptedException {
+        if (id == null || id.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        return existenceFilter.lookup(ExistenceFilter.KeySpace.RECIPE_IDS, id, () -> readHeaderById(id));
+    }
+
+    private Optional<Recipe> readHeaderById(String id) throws ExecutionException, InterruptedException {
+        long stamp = versionCache.stamp();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
         ApiFuture<DocumentSnapshot> future = docRef.get();
         DocumentSnapshot document = future.get();
@@ -55,6 +173,9 @@ public class RecipeRepository {
             Recipe recipe = document.toObject(Recipe.class);
             if (recipe != null) {
                 recipe.setId(document.getId());
+                recipe.setVersion(contentVersion(document).toString());
+                internStrings(recipe);
+                versionCache.put(COLLECTION_NAME, id, recipe.getVersion(), stamp);
             }
             return Optional.ofNullable(recipe);
         }
@@ -62,6 +183,13 @@ public class RecipeRepository {
         return Optional.empty();
     }
 
+    /**
+     * Retourne la dernière version connue d'une recette, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return versionCache.get(COLLECTION_NAME, id);
+    }
+
     /**
      * Récupère toutes les recettes
      */
@@ -75,16 +203,38 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
         return recipeList;
     }
 
+    /**
+     * Parcourt toutes les recettes en parallèle, partition par partition.
+     * Le callback est appelé depuis plusieurs threads.
+     */
+    public PartitionedScanner.ScanProgress scanAll(int partitions, Consumer<Recipe> callback,
+                                                   PartitionedScanner.ScanProgressListener listener) throws ExecutionException, InterruptedException {
+        return scanner.scan(COLLECTION_NAME, partitions, document -> {
+            Recipe recipe = document.toObject(Recipe.class);
+            recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
+            return recipe;
+        }, callback, listener);
+    }
+
     /**
      * Récupère toutes les recettes publiées
      */
     public List<Recipe> findAllPublished() throws ExecutionException, InterruptedException {
+        List<Recipe> cached = catalog.query(RecipeView::hasCreatedAt, OffHeapRecipeCatalog.NEWEST_FIRST, Integer.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("published", true)
                            .orderBy("createdAt", Query.Direction.DESCENDING);
@@ -95,6 +245,8 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
@@ -109,6 +261,13 @@ public class RecipeRepository {
             return new ArrayList<>();
         }
         
+        Predicate<RecipeView> inCategory = catalog.inCategory(categoryId);
+        List<Recipe> cached = catalog.query(view -> view.hasCreatedAt() && inCategory.test(view),
+                OffHeapRecipeCatalog.NEWEST_FIRST, Integer.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("categoryId", categoryId)
                            .whereEqualTo("published", true)
@@ -120,12 +279,197 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
         return recipeList;
     }
 
+    /**
+     * Recettes publiées, lues page par page au fil de l'itération (rendu des listes en flux)
+     */
+    public Iterable<Recipe> streamPublished() {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("published", true)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+        return new PagedQuery<>(query, streamingPageSize, this::toHeader);
+    }
+
+    /**
+     * Recettes publiées d'une catégorie, lues page par page au fil de l'itération
+     */
+    public Iterable<Recipe> streamByCategoryId(String categoryId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("categoryId", categoryId)
+                .whereEqualTo("published", true)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+        return new PagedQuery<>(query, streamingPageSize, this::toHeader);
+    }
+
+    /**
+     * Recettes publiées, des plus récentes aux plus anciennes, lues page par page à la demande de l'abonné
+     */
+    public Flux<Recipe> fluxPublished() {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("published", true)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+        return FirestorePublishers.pages(query, streamingPageSize, this::toHeader);
+    }
+
+    /**
+     * Recettes publiées d'une catégorie, lues page par page à la demande de l'abonné
+     */
+    public Flux<Recipe> fluxByCategoryId(String categoryId) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("categoryId", categoryId)
+                .whereEqualTo("published", true)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+        return FirestorePublishers.pages(query, streamingPageSize, this::toHeader);
+    }
+
+    /**
+     * Écoute les dernières recettes publiées : un instantané à l'abonnement, puis un par changement.
+     * L'écouteur Firestore est enregistré à l'abonnement et retiré à l'annulation.
+     */
+    public Flux<RecipeChanges> listenLatest(int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("published", true)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(limit);
+        return Flux.create(sink -> {
+            ListenerRegistration registration = query.addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    sink.error(error);
+                    return;
+                }
+                List<Recipe> current = new ArrayList<>();
+                for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                    current.add(toHeader(document));
+                }
+                List<Recipe> updated = new ArrayList<>();
+                List<String> removed = new ArrayList<>();
+                for (DocumentChange change : snapshot.getDocumentChanges()) {
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        removed.add(change.getDocument().getId());
+                    } else {
+                        updated.add(toHeader(change.getDocument()));
+                    }
+                }
+                sink.next(new RecipeChanges(current, updated, removed));
+            });
+            sink.onDispose(registration::remove);
+        });
+    }
+
+    /**
+     * Écoute une recette : un instantané à l'abonnement, puis un par écriture
+     */
+    public Flux<RecipeChanges> listenRecipe(String id) {
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
+        return Flux.create(sink -> {
+            ListenerRegistration registration = docRef.addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    sink.error(error);
+                    return;
+                }
+                Recipe recipe = snapshot.exists() ? snapshot.toObject(Recipe.class) : null;
+                if (recipe == null) {
+                    sink.next(new RecipeChanges(List.of(), List.of(), List.of(id)));
+                    return;
+                }
+                recipe.setId(snapshot.getId());
+                recipe.setVersion(contentVersion(snapshot).toString());
+                internStrings(recipe);
+                sink.next(new RecipeChanges(List.of(recipe), List.of(recipe), List.of()));
+            });
+            sink.onDispose(registration::remove);
+        });
+    }
+
+    /**
+     * Changements postérieurs au jeton (tous les documents si null), au plus limit, dans l'ordre d'écriture.
+     * Les recettes dépubliées et les pierres tombales sont transmises comme suppressions ;
+     * les lectures sont proportionnelles au nombre de changements, pas à la taille du catalogue.
+     */
+    public RecipeDelta findChangesSince(SyncToken since, int limit) throws ExecutionException, InterruptedException {
+        ApiFuture<QuerySnapshot> recipesFuture =
+                changeLog.changesAfter(firestore.collection(COLLECTION_NAME), since, limit).get();
+        // Synchronisation initiale : aucune suppression à transmettre
+        ApiFuture<QuerySnapshot> tombstonesFuture = since == null ? null
+                : changeLog.changesAfter(firestore.collection(RecipeChangeLog.TOMBSTONES), since, limit).get();
+        QuerySnapshot recipes = recipesFuture.get();
+        QuerySnapshot tombstones = tombstonesFuture == null ? null : tombstonesFuture.get();
+
+        RecipeChangeLog.ChangePage<QueryDocumentSnapshot> page = RecipeChangeLog.merge(recipes.getDocuments(),
+                tombstones == null ? List.of() : tombstones.getDocuments(), limit, RecipeChangeLog.ORDER);
+        List<QueryDocumentSnapshot> entries = page.entries();
+        boolean hasMore = page.hasMore();
+
+        List<DocumentReference> bodyRefs = new ArrayList<>();
+        List<QueryDocumentSnapshot> published = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (QueryDocumentSnapshot entry : entries) {
+            boolean tombstone = RecipeChangeLog.TOMBSTONES.equals(entry.getReference().getParent().getId());
+            if (!tombstone && Boolean.TRUE.equals(entry.getBoolean("published"))) {
+                published.add(entry);
+                bodyRefs.add(bodyRef(entry.getReference()));
+            } else if (since != null) {
+                deleted.add(entry.getId());
+            }
+        }
+
+        List<Recipe> changed = new ArrayList<>(published.size());
+        if (!published.isEmpty()) {
+            // Corps de la page en un seul aller-retour
+            List<DocumentSnapshot> bodies = firestore.getAll(bodyRefs.toArray(DocumentReference[]::new)).get();
+            for (int i = 0; i < published.size(); i++) {
+                changed.add(toFullRecipe(published.get(i), bodies.get(i)));
+            }
+        }
+
+        SyncToken next;
+        if (hasMore) {
+            QueryDocumentSnapshot last = entries.get(entries.size() - 1);
+            next = new SyncToken(last.getTimestamp(RecipeChangeLog.UPDATED_AT), last.getId());
+        } else {
+            // Tout est transmis jusqu'à la date de lecture la plus ancienne des deux requêtes
+            Timestamp readTime = recipes.getReadTime();
+            if (tombstones != null && tombstones.getReadTime().compareTo(readTime) < 0) {
+                readTime = tombstones.getReadTime();
+            }
+            next = new SyncToken(readTime, null);
+        }
+        return new RecipeDelta(changed, deleted, next.encode(), hasMore);
+    }
+
+    /**
+     * Compte les recettes publiées d'une catégorie (agrégation côté serveur, sans lire les documents)
+     */
+    public long countByCategoryId(String categoryId) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("categoryId", categoryId)
+                .whereEqualTo("published", true);
+        return query.count().get().get().getCount();
+    }
+
+    /**
+     * Compte toutes les recettes d'un auteur, publiées ou non (agrégation côté serveur)
+     */
+    public long countByAuthorId(String authorId) throws ExecutionException, InterruptedException {
+        Query query = firestore.collection(COLLECTION_NAME).whereEqualTo("authorId", authorId);
+        return query.count().get().get().getCount();
+    }
+
+    private Recipe toHeader(QueryDocumentSnapshot document) {
+        Recipe recipe = document.toObject(Recipe.class);
+        recipe.setId(document.getId());
+        recipe.setVersion(contentVersion(document).toString());
+        internStrings(recipe);
+        return recipe;
+    }
+
     /**
      * Trouve les recettes par auteur
      */
@@ -144,6 +488,8 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
@@ -158,6 +504,13 @@ public class RecipeRepository {
             return new ArrayList<>();
         }
         
+        Predicate<RecipeView> byAuthor = catalog.byAuthor(authorId);
+        List<Recipe> cached = catalog.query(view -> view.hasCreatedAt() && byAuthor.test(view),
+                OffHeapRecipeCatalog.NEWEST_FIRST, Integer.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("authorId", authorId)
                            .whereEqualTo("published", true)
@@ -169,6 +522,8 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
@@ -183,6 +538,12 @@ public class RecipeRepository {
             return new ArrayList<>();
         }
         
+        List<Recipe> cached = catalog.query(view -> view.hasCreatedAt() && view.difficulty() == difficulty,
+                OffHeapRecipeCatalog.NEWEST_FIRST, Integer.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("difficulty", difficulty)
                            .whereEqualTo("published", true)
@@ -194,6 +555,8 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
@@ -204,6 +567,12 @@ public class RecipeRepository {
      * Trouve les recettes les mieux notées
      */
     public List<Recipe> findTopRated(int limit) throws ExecutionException, InterruptedException {
+        List<Recipe> cached = catalog.query(view -> !Double.isNaN(view.rating()),
+                OffHeapRecipeCatalog.descending(RecipeView::rating), limit);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("published", true)
                            .orderBy("rating", Query.Direction.DESCENDING)
@@ -215,16 +584,47 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
         return recipeList;
     }
 
+    /**
+     * Trouve les recettes publiées les plus vues
+     */
+    public List<Recipe> findMostViewed(int limit) throws ExecutionException, InterruptedException {
+        List<Recipe> cached = catalog.query(view -> true, OffHeapRecipeCatalog.descending(RecipeView::viewCount), limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        Query query = firestore.collection(COLLECTION_NAME)
+                           .whereEqualTo("published", true)
+                           .orderBy("viewCount", Query.Direction.DESCENDING)
+                           .limit(limit);
+        List<Recipe> recipeList = new ArrayList<>();
+        for (QueryDocumentSnapshot document : query.get().get().getDocuments()) {
+            Recipe recipe = document.toObject(Recipe.class);
+            recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
+            recipeList.add(recipe);
+        }
+        return recipeList;
+    }
+
     /**
      * Trouve les recettes les plus récentes
      */
     public List<Recipe> findLatest(int limit) throws ExecutionException, InterruptedException {
+        List<Recipe> cached = catalog.query(RecipeView::hasCreatedAt, OffHeapRecipeCatalog.NEWEST_FIRST, limit);
+        if (cached != null) {
+            return cached;
+        }
+
         CollectionReference recipes = firestore.collection(COLLECTION_NAME);
         Query query = recipes.whereEqualTo("published", true)
                            .orderBy("createdAt", Query.Direction.DESCENDING)
@@ -236,6 +636,8 @@ public class RecipeRepository {
         for (QueryDocumentSnapshot document : documents) {
             Recipe recipe = document.toObject(Recipe.class);
             recipe.setId(document.getId());
+            recipe.setVersion(contentVersion(document).toString());
+            internStrings(recipe);
             recipeList.add(recipe);
         }
         
@@ -251,6 +653,13 @@ public class RecipeRepository {
         }
         
         String searchLower = searchTerm.toLowerCase().trim();
+        // Catalogue chargé : seules les recettes correspondantes sont matérialisées
+        List<Recipe> cached = catalog.query(view -> view.hasCreatedAt() && matchesSearch(view, searchLower),
+                OffHeapRecipeCatalog.NEWEST_FIRST, Integer.MAX_VALUE);
+        if (cached != null) {
+            return cached;
+        }
+
         List<Recipe> allRecipes = findAllPublished();
         List<Recipe> matchingRecipes = new ArrayList<>();
         
@@ -266,7 +675,121 @@ public class RecipeRepository {
     }
 
     /**
-     * Supprime une recette par son ID
+     * Remplace les chaînes répétées (catégorie, auteur, tags, unités) par leurs instances canoniques
+     * Les noms d'ingrédients, texte libre, restent tels quels
+     */
+    private void internStrings(Recipe recipe) {
+        // Les setters de Recipe modifient updatedAt
+        Timestamp updatedAt = recipe.getUpdatedAt();
+        recipe.setCategoryId(dictionary.intern(recipe.getCategoryId()));
+        recipe.setAuthorId(dictionary.intern(recipe.getAuthorId()));
+        recipe.setUpdatedAt(updatedAt);
+        if (recipe.getTags() != null) {
+            recipe.getTags().replaceAll(dictionary::intern);
+        }
+        if (recipe.getIngredients() != null) {
+            for (Recipe.Ingredient ingredient : recipe.getIngredients()) {
+                ingredient.setUnit(dictionary.intern(ingredient.getUnit()));
+            }
+        }
+    }
+
+    private static boolean matchesSearch(RecipeView view, String searchLower) {
+        String title = view.title();
+        if (title != null && title.toLowerCase().contains(searchLower)) {
+            return true;
+        }
+        String description = view.description();
+        if (description != null && description.toLowerCase().contains(searchLower)) {
+            return true;
+        }
+        List<String> tags = view.tags();
+        return tags != null && tags.stream().anyMatch(tag -> tag.toLowerCase().contains(searchLower));
+    }
+
+    /**
+     * Met à jour partiellement une recette (uniquement les champs fournis)
+     * Les champs du corps sont écrits dans le sous-document, dans le même batch
+     * Une version attendue est comparée à celle du contenu : l'en-tête est alors relu, car les compteurs
+     * changent la date d'écriture Firestore sans changer la version
+     * Retourne la nouvelle version de l'en-tête, ou vide si la recette n'existe pas
+     */
+    public Optional<String> patch(String id, Map<String, Object> fields, String expectedVersion) throws ExecutionException, InterruptedException {
+        if (id == null || id.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, Object> headerFields = new HashMap<>(fields);
+        Map<String, Object> bodyFields = new HashMap<>();
+        for (String field : BODY_FIELDS) {
+            if (headerFields.containsKey(field)) {
+                bodyFields.put(field, headerFields.remove(field));
+            }
+        }
+
+        DocumentReference headerRef = firestore.collection(COLLECTION_NAME).document(id);
+        try {
+            boolean anyVersion = expectedVersion == null || DocumentPatch.isAnyVersion(expectedVersion);
+            if (anyVersion && bodyFields.isEmpty()) {
+                // Cas courant : aucune lecture avant l'écriture
+                return DocumentPatch.apply(headerRef, headerFields, expectedVersion);
+            }
+            return patchAfterRead(headerRef, headerFields, bodyFields, anyVersion ? null : DocumentPatch.parseVersion(expectedVersion));
+        } finally {
+            versionCache.invalidate(COLLECTION_NAME, id);
+            catalog.refresh(id);
+        }
+    }
+
+    /**
+     * Écriture précédée d'une lecture de l'en-tête (et du corps si des champs du corps changent) :
+     * - une version attendue est comparée à celle du contenu ;
+     * - une recette pas encore migrée reçoit son corps complet (celui de l'en-tête, modifié par le patch),
+     *   retiré de l'en-tête dans le même batch.
+     * L'écriture est alors conditionnée à la date Firestore lue, et recommencée si seul un compteur
+     * a été modifié entre la lecture et l'écriture
+     */
+    private Optional<String> patchAfterRead(DocumentReference headerRef, Map<String, Object> headerFields,
+                                            Map<String, Object> bodyFields, Timestamp expected) throws ExecutionException, InterruptedException {
+        DocumentReference bodyRef = bodyRef(headerRef);
+        for (int attempt = 1; ; attempt++) {
+            List<DocumentSnapshot> snapshots = bodyFields.isEmpty()
+                    ? List.of(headerRef.get().get())
+                    : firestore.getAll(headerRef, bodyRef).get();
+            DocumentSnapshot header = snapshots.get(0);
+            if (!header.exists()) {
+                return Optional.empty();
+            }
+            if (expected != null && !contentVersion(header).equals(expected)) {
+                throw new ConcurrentModificationException("La recette a été modifiée depuis la version " + expected);
+            }
+
+            Map<String, Object> update = new HashMap<>(headerFields);
+            Consumer<WriteBatch> bodyWrite = batch -> { };
+            boolean legacyBody = !bodyFields.isEmpty() && !snapshots.get(1).exists();
+            if (legacyBody) {
+                Map<String, Object> body = legacyBody(header);
+                body.putAll(bodyFields);
+                BODY_FIELDS.forEach(field -> update.put(field, FieldValue.delete()));
+                bodyWrite = batch -> batch.set(bodyRef, body);
+            } else if (!bodyFields.isEmpty()) {
+                bodyWrite = batch -> batch.set(bodyRef, bodyFields, SetOptions.merge());
+            }
+
+            // Sans version attendue ni corps à déplacer, rien ne dépend de l'en-tête lu
+            String precondition = expected != null || legacyBody ? header.getUpdateTime().toString() : null;
+            try {
+                return DocumentPatch.apply(headerRef, update, precondition, bodyWrite);
+            } catch (ConcurrentModificationException e) {
+                if (attempt >= PATCH_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Supprime une recette par son ID (en-tête et corps)
      */
     public boolean deleteById(String id) throws ExecutionException, InterruptedException {
         if (id == null || id.isEmpty()) {
@@ -274,8 +797,13 @@ public class RecipeRepository {
         }
         
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
-        ApiFuture<WriteResult> result = docRef.delete();
-        result.get();
+        WriteBatch batch = firestore.batch();
+        batch.delete(bodyRef(docRef));
+        batch.delete(docRef);
+        changeLog.recordDeletion(batch, id);
+        batch.commit().get();
+        versionCache.invalidate(COLLECTION_NAME, id);
+        catalog.remove(id);
         return true;
     }
 
@@ -303,17 +831,22 @@ public class RecipeRepository {
      */
     public void updatePublishedStatus(String recipeId, boolean published) throws ExecutionException, InterruptedException {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(recipeId);
-        ApiFuture<WriteResult> result = docRef.update("published", published);
+        ApiFuture<WriteResult> result = docRef.update("published", published,
+                RecipeChangeLog.UPDATED_AT, FieldValue.serverTimestamp());
         result.get();
+        versionCache.invalidate(COLLECTION_NAME, recipeId);
+        catalog.refresh(recipeId);
     }
 
     /**
      * Met à jour le nombre de vues d'une recette
+     * Le compteur ne date pas l'en-tête : une vue ne change ni la version ni la synchronisation différentielle
      */
     public void incrementViewCount(String recipeId) throws ExecutionException, InterruptedException {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(recipeId);
         ApiFuture<WriteResult> result = docRef.update("viewCount", FieldValue.increment(1));
         result.get();
+        catalog.recordView(recipeId);
     }
 
     /**
@@ -323,8 +856,57 @@ public class RecipeRepository {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(recipeId);
         ApiFuture<WriteResult> result = docRef.update(
             "rating", newRating,
-            "ratingCount", newRatingCount
+            "ratingCount", newRatingCount,
+            RecipeChangeLog.UPDATED_AT, FieldValue.serverTimestamp()
         );
         result.get();
+        versionCache.invalidate(COLLECTION_NAME, recipeId);
+        catalog.refresh(recipeId);
+    }
+
+    /**
+     * Migre les recettes dont le corps est encore stocké dans l'en-tête :
+     * le corps est copié dans le sous-document et retiré de l'en-tête, atomiquement
+     * Une recette modifiée pendant la migration est ignorée et sera reprise au prochain passage ;
+     * une recette qui a déjà un sous-document de corps n'est jamais écrasée (create échoue)
+     * Retourne le nombre de recettes migrées
+     */
+    public long migrateBodies(int partitions, PartitionedScanner.ScanProgressListener listener) throws ExecutionException, InterruptedException {
+        List<ApiFuture<List<WriteResult>>> commits = new CopyOnWriteArrayList<>();
+        scanner.scan(COLLECTION_NAME, partitions, document -> document, document -> {
+            if (BODY_FIELDS.stream().noneMatch(document::contains)) {
+                return;
+            }
+
+            Map<String, Object> removal = new HashMap<>();
+            BODY_FIELDS.forEach(field -> removal.put(field, FieldValue.delete()));
+
+            WriteBatch batch = firestore.batch();
+            batch.create(bodyRef(document.getReference()), document.toObject(RecipeBody.class));
+            batch.update(document.getReference(), removal, Precondition.updatedAt(document.getUpdateTime()));
+            commits.add(batch.commit());
+            versionCache.invalidate(COLLECTION_NAME, document.getId());
+        }, listener);
+
+        return ApiFutures.successfulAsList(commits).get().stream()
+                .filter(Objects::nonNull)
+                .count();
+    }
+
+    /**
+     * Champs du corps encore stockés dans l'en-tête d'une recette pas encore migrée
+     */
+    private static Map<String, Object> legacyBody(DocumentSnapshot header) {
+        Map<String, Object> body = new HashMap<>();
+        for (String field : BODY_FIELDS) {
+            if (header.contains(field)) {
+                body.put(field, header.get(field));
+            }
+        }
+        return body;
+    }
+
+    private DocumentReference bodyRef(DocumentReference headerRef) {
+        return headerRef.collection(CONTENT_SUBCOLLECTION).document(BODY_DOCUMENT);
     }
 }
@@ -0,0 +1,189 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+import com.google.cloud.Timestamp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.recipeapp.repository.RecipeRecordStore.*;
+
+/**
+ * Vue réutilisable sur un enregistrement de RecipeRecordStore : les champs sont lus directement
+ * dans l'arène, sans créer d'objet Recipe ; les chaînes du dictionnaire sont les instances canoniques.
+ * Valide uniquement sous le verrou de lecture du catalogue.
+ */
+final class RecipeView {
+
+    private static final Recipe.DifficultyLevel[] DIFFICULTIES = Recipe.DifficultyLevel.values();
+
+    private final RecipeRecordStore store;
+    private ByteBuffer buffer;
+    private int base;
+
+    RecipeView(RecipeRecordStore store) {
+        this.store = store;
+    }
+
+    RecipeView moveTo(long address) {
+        buffer = store.arena(address);
+        base = RecipeRecordStore.offset(address);
+        return this;
+    }
+
+    boolean isPublished() {
+        return (buffer.get(base + FLAGS) & PUBLISHED) != 0;
+    }
+
+    Recipe.DifficultyLevel difficulty() {
+        int ordinal = buffer.get(base + DIFFICULTY);
+        return ordinal == 0 ? null : DIFFICULTIES[ordinal - 1];
+    }
+
+    /**
+     * Note, ou NaN si elle est absente
+     */
+    double rating() {
+        return buffer.getDouble(base + RATING);
+    }
+
+    /**
+     * Nombre de vues, 0 s'il est absent
+     */
+    int viewCount() {
+        int value = buffer.getInt(base + VIEW_COUNT);
+        return value == NULL_INT ? 0 : value;
+    }
+
+    boolean hasCreatedAt() {
+        return buffer.getLong(base + CREATED_SECONDS) != NULL_SECONDS;
+    }
+
+    /**
+     * Compare les dates de création (à n'utiliser que si hasCreatedAt())
+     */
+    int compareCreatedAt(RecipeView other) {
+        int bySeconds = Long.compare(buffer.getLong(base + CREATED_SECONDS), other.buffer.getLong(other.base + CREATED_SECONDS));
+        return bySeconds != 0 ? bySeconds
+                : Integer.compare(buffer.getInt(base + CREATED_NANOS), other.buffer.getInt(other.base + CREATED_NANOS));
+    }
+
+    String id() { return string(ID); }
+
+    String title() { return string(TITLE); }
+
+    String description() { return string(DESCRIPTION); }
+
+    /**
+     * Ordinaux du dictionnaire (NULL_ORDINAL si absent, INLINE_ORDINAL si la chaîne est dans l'enregistrement) :
+     * les filtres comparent des entiers
+     */
+    int categoryOrdinal() {
+        return buffer.getInt(base + CATEGORY_ID);
+    }
+
+    int authorOrdinal() {
+        return buffer.getInt(base + AUTHOR_ID);
+    }
+
+    String categoryId() {
+        int ordinal = categoryOrdinal();
+        return ordinal == INLINE_ORDINAL ? string(CATEGORY_INLINE) : dictionaryValue(ordinal);
+    }
+
+    String authorId() {
+        int ordinal = authorOrdinal();
+        return ordinal == INLINE_ORDINAL ? string(AUTHOR_INLINE) : dictionaryValue(ordinal);
+    }
+
+    List<String> tags() {
+        int count = buffer.getInt(base + TAG_COUNT);
+        if (count == NULL_LENGTH) {
+            return null;
+        }
+        List<String> tags = new ArrayList<>(count);
+        int at = stringAt(STRING_COUNT);
+        for (int i = 0; i < count; i++) {
+            int ordinal = buffer.getInt(at);
+            at += 4;
+            if (ordinal == INLINE_ORDINAL) {
+                tags.add(decode(at));
+                at = next(at);
+            } else {
+                tags.add(dictionaryValue(ordinal));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Reconstruit l'en-tête de la recette (les setters de Recipe modifient updatedAt : il est fixé en dernier)
+     */
+    Recipe toRecipe() {
+        Recipe recipe = new Recipe();
+        recipe.setId(id());
+        recipe.setTitle(title());
+        recipe.setDescription(description());
+        recipe.setCategoryId(categoryId());
+        recipe.setAuthorId(authorId());
+        recipe.setImageUrl(string(IMAGE_URL));
+        recipe.setServings(integer(SERVINGS));
+        recipe.setPrepTimeMinutes(integer(PREP_TIME));
+        recipe.setCookTimeMinutes(integer(COOK_TIME));
+        recipe.setDifficulty(difficulty());
+        recipe.setTags(tags());
+        double rating = rating();
+        recipe.setRating(Double.isNaN(rating) ? null : rating);
+        recipe.setRatingCount(integer(RATING_COUNT));
+        recipe.setFavoriteCount(integer(FAVORITE_COUNT));
+        recipe.setViewCount(integer(VIEW_COUNT));
+        recipe.setPublished(isPublished());
+        recipe.setCreatedAt(timestamp(CREATED_SECONDS, CREATED_NANOS));
+        recipe.setUpdatedAt(timestamp(UPDATED_SECONDS, UPDATED_NANOS));
+        Timestamp version = timestamp(VERSION_SECONDS, VERSION_NANOS);
+        recipe.setVersion(version == null ? null : version.toString());
+        return recipe;
+    }
+
+    private String dictionaryValue(int ordinal) {
+        return ordinal == NULL_ORDINAL ? null : store.dictionary().value(ordinal);
+    }
+
+    private Integer integer(int field) {
+        int value = buffer.getInt(base + field);
+        return value == NULL_INT ? null : value;
+    }
+
+    private Timestamp timestamp(int secondsField, int nanosField) {
+        long seconds = buffer.getLong(base + secondsField);
+        return seconds == NULL_SECONDS ? null : Timestamp.ofTimeSecondsAndNanos(seconds, buffer.getInt(base + nanosField));
+    }
+
+    private String string(int field) {
+        return decode(stringAt(field));
+    }
+
+    private int stringAt(int field) {
+        int at = base + STRINGS;
+        for (int i = 0; i < field; i++) {
+            at = next(at);
+        }
+        return at;
+    }
+
+    private int next(int at) {
+        return at + 4 + Math.max(0, buffer.getInt(at));
+    }
+
+    private String decode(int at) {
+        int length = buffer.getInt(at);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
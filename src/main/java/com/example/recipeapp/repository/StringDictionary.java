@@ -0,0 +1,109 @@
+package com.example.recipeapp.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionnaire global des chaînes répétées (ID de catégories et d'auteurs, tags, unités).
+ * Chaque chaîne reçoit un ordinal stable et une instance canonique, partagée par tous les objets
+ * désérialisés par les repositories ; le catalogue hors tas stocke les ordinaux.
+ * Le texte libre (noms d'ingrédients...) n'y entre pas : il ferait grossir le dictionnaire sans partage.
+ */
+@Component
+public class StringDictionary {
+
+    // Estimation de l'empreinte d'une String compacte (en-tête, hash, tableau) hors contenu
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Ordinal refusé : le dictionnaire est plein et la chaîne n'y est pas */
+    public static final int FULL = -2;
+
+    // Au-delà, les nouvelles chaînes ne sont ni canonisées ni numérotées
+    @Value("${recipe-app.string-dictionary.max-entries:500000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[1024];
+    private int size;
+
+    private Counter savedBytes;
+
+    @PostConstruct
+    void registerMetrics() {
+        savedBytes = Counter.builder("string.dictionary.saved.bytes")
+                .description("Octets de chaînes dupliquées évités par la canonisation (estimation)")
+                .register(meterRegistry);
+        Gauge.builder("string.dictionary.entries", ordinals, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    /**
+     * Ordinal de la chaîne, attribué à la première occurrence, ou FULL si le dictionnaire est plein
+     */
+    public int ordinal(String value) {
+        Integer ordinal = ordinals.get(value);
+        return ordinal != null ? ordinal : assign(value);
+    }
+
+    /**
+     * Ordinal de la chaîne, ou -1 si elle n'a jamais été vue (sans attribution)
+     */
+    public int find(String value) {
+        Integer ordinal = value == null ? null : ordinals.get(value);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String value(int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * Instance canonique de la chaîne
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Integer ordinal = ordinals.get(value);
+        if (ordinal == null) {
+            ordinal = assign(value);
+            if (ordinal == FULL) {
+                return value;
+            }
+        }
+        String canonical = values[ordinal];
+        if (canonical != value) {
+            savedBytes.increment(STRING_OVERHEAD_BYTES + value.length());
+        }
+        return canonical;
+    }
+
+    private synchronized int assign(String value) {
+        Integer existing = ordinals.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (size >= maxEntries) {
+            return FULL;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int ordinal = size;
+        values[ordinal] = value;
+        size++;
+        // Publié après l'écriture du tableau : un lecteur qui voit l'ordinal voit la valeur
+        ordinals.put(value, ordinal);
+        return ordinal;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.Timestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position dans le journal des changements de recettes, opaque pour les clients.
+ * time est la date d'écriture (updatedAt) du dernier changement transmis ; id, le document à cette date
+ * quand une page a été coupée, ou null si tous les changements jusqu'à time ont été transmis.
+ */
+public record SyncToken(Timestamp time, String id) {
+
+    /**
+     * Forme transmise aux clients (base64 URL)
+     */
+    public String encode() {
+        String value = time.getSeconds() + "." + time.getNanos() + (id == null ? "" : "/" + id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un jeton reçu d'un client ; lève une IllegalArgumentException s'il est invalide
+     */
+    public static SyncToken parse(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int slash = value.indexOf('/');
+            String time = slash < 0 ? value : value.substring(0, slash);
+            int dot = time.indexOf('.');
+            return new SyncToken(
+                    Timestamp.ofTimeSecondsAndNanos(Long.parseLong(time.substring(0, dot)),
+                            Integer.parseInt(time.substring(dot + 1))),
+                    slash < 0 ? null : value.substring(slash + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Jeton de synchronisation invalide");
+        }
+    }
+}
@@ -2,26 +2,56 @@ package com.example.recipeapp.repository;
 
 import com.example.recipeapp.model.User;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
 import com.google.cloud.firestore.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * Repository pour la gestion des utilisateurs dans Firestore
+ * Le nom d'utilisateur et l'email sont réservés dans usernames/{username} et emails/{email},
+ * ce qui garantit leur unicité et permet de retrouver un utilisateur par lecture directe.
  */
 @Repository
 public class UserRepository {
 
     private static final String COLLECTION_NAME = "users";
+    private static final String USERNAMES_COLLECTION = "usernames";
+    private static final String EMAILS_COLLECTION = "emails";
 
     @Autowired
     private Firestore firestore;
 
+    @Autowired
+    private PartitionedScanner scanner;
+
+    @Autowired
+    private ExistenceFilter existenceFilter;
+
+    @Autowired
+    private VersionCache versionCache;
+
+    @Value("${recipe-app.streaming.page-size:50}")
+    private int streamingPageSize;
+
+    // Recherche par requête pour les utilisateurs créés avant les réservations (à désactiver après le backfill)
+    @Value("${recipe-app.user-index.query-fallback:true}")
+    private boolean queryFallback;
+
     /**
      * Sauvegarde ou met à jour un utilisateur
      */
@@ -36,6 +66,83 @@ public class UserRepository {
         
         ApiFuture<WriteResult> result = users.document(user.getId()).set(user);
         result.get(); // Attendre la completion
+        versionCache.invalidate(COLLECTION_NAME, user.getId());
+        recordLoginWrite(user.getUsername(), user.getEmail());
+        return user;
+    }
+
+    /**
+     * Crée un utilisateur en réservant son nom d'utilisateur et son email dans la même transaction
+     */
+    public User create(User user) throws ExecutionException, InterruptedException {
+        DocumentReference userRef = firestore.collection(COLLECTION_NAME).document();
+        user.setId(userRef.getId());
+        DocumentReference usernameRef = usernameRef(user.getUsername());
+        DocumentReference emailRef = emailRef(user.getEmail());
+
+        runTransaction(transaction -> {
+            // Toutes les lectures avant les écritures (contrainte des transactions Firestore)
+            if (isTaken(transaction, emailRef, "email", normalizeEmail(user.getEmail()), user.getId())) {
+                throw new RuntimeException("Un utilisateur avec cet email existe déjà");
+            }
+            if (isTaken(transaction, usernameRef, "username", user.getUsername().trim(), user.getId())) {
+                throw new RuntimeException("Ce nom d'utilisateur est déjà pris");
+            }
+
+            transaction.create(usernameRef, reservation(user.getId()));
+            transaction.create(emailRef, reservation(user.getId()));
+            transaction.create(userRef, user);
+            return null;
+        });
+        recordLoginWrite(user.getUsername(), user.getEmail());
+        return user;
+    }
+
+    /**
+     * Remplace un utilisateur existant, en déplaçant ses réservations si son nom ou son email change
+     * Un mot de passe vide conserve le mot de passe enregistré
+     */
+    public User update(User user) throws ExecutionException, InterruptedException {
+        DocumentReference userRef = firestore.collection(COLLECTION_NAME).document(user.getId());
+
+        runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(userRef).get();
+            if (!current.exists()) {
+                throw new RuntimeException("Utilisateur non trouvé");
+            }
+
+            String oldUsername = current.getString("username");
+            String oldEmail = current.getString("email");
+            boolean usernameChanged = !usernameKey(user.getUsername()).equals(usernameKey(oldUsername));
+            boolean emailChanged = !emailKey(user.getEmail()).equals(emailKey(oldEmail));
+
+            if (emailChanged && isTaken(transaction, emailRef(user.getEmail()), "email", normalizeEmail(user.getEmail()), user.getId())) {
+                throw new RuntimeException("Un utilisateur avec cet email existe déjà");
+            }
+            if (usernameChanged && isTaken(transaction, usernameRef(user.getUsername()), "username", user.getUsername().trim(), user.getId())) {
+                throw new RuntimeException("Ce nom d'utilisateur est déjà pris");
+            }
+
+            if (user.getPassword() == null || user.getPassword().isEmpty()) {
+                user.setPassword(current.getString("password"));
+            }
+            if (usernameChanged) {
+                transaction.create(usernameRef(user.getUsername()), reservation(user.getId()));
+                if (oldUsername != null) {
+                    transaction.delete(usernameRef(oldUsername));
+                }
+            }
+            if (emailChanged) {
+                transaction.create(emailRef(user.getEmail()), reservation(user.getId()));
+                if (oldEmail != null) {
+                    transaction.delete(emailRef(oldEmail));
+                }
+            }
+            transaction.set(userRef, user);
+            return null;
+        });
+        versionCache.invalidate(COLLECTION_NAME, user.getId());
+        recordLoginWrite(user.getUsername(), user.getEmail());
         return user;
     }
 
@@ -47,6 +154,7 @@ public class UserRepository {
             return Optional.empty();
         }
         
+        long stamp = versionCache.stamp();
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
         ApiFuture<DocumentSnapshot> future = docRef.get();
         DocumentSnapshot document = future.get();
@@ -55,6 +163,8 @@ public class UserRepository {
             User user = document.toObject(User.class);
             if (user != null) {
                 user.setId(document.getId());
+                user.setVersion(document.getUpdateTime().toString());
+                versionCache.put(COLLECTION_NAME, id, user.getVersion(), stamp);
             }
             return Optional.ofNullable(user);
         }
@@ -63,38 +173,84 @@ public class UserRepository {
     }
 
     /**
-     * Trouve un utilisateur par son email
+     * Retourne la dernière version connue d'un utilisateur, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return versionCache.get(COLLECTION_NAME, id);
+    }
+
+    /**
+     * Trouve un utilisateur par son email (lecture directe de la réservation)
+     * Les emails certainement inexistants ne sont pas lus
      */
     public Optional<User> findByEmail(String email) throws ExecutionException, InterruptedException {
         if (email == null || email.trim().isEmpty()) {
             return Optional.empty();
         }
         
-        CollectionReference users = firestore.collection(COLLECTION_NAME);
-        Query query = users.whereEqualTo("email", email.toLowerCase().trim());
-        ApiFuture<QuerySnapshot> querySnapshot = query.get();
-        
-        List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
-        if (!documents.isEmpty()) {
-            QueryDocumentSnapshot document = documents.get(0);
-            User user = document.toObject(User.class);
-            user.setId(document.getId());
-            return Optional.of(user);
+        return existenceFilter.lookup(ExistenceFilter.KeySpace.EMAILS, email, () -> readByEmail(email));
+    }
+
+    private Optional<User> readByEmail(String email) throws ExecutionException, InterruptedException {
+        DocumentSnapshot reservation = emailRef(email).get().get();
+        if (reservation.exists()) {
+            return findById(reservation.getString("userId"));
         }
         
-        return Optional.empty();
+        return queryFallback ? findOneWhere("email", normalizeEmail(email)) : Optional.empty();
     }
 
     /**
-     * Trouve un utilisateur par son nom d'utilisateur
+     * Trouve un utilisateur par son nom d'utilisateur (lecture directe de la réservation)
+     * Les noms certainement inexistants ne sont pas lus
      */
     public Optional<User> findByUsername(String username) throws ExecutionException, InterruptedException {
         if (username == null || username.trim().isEmpty()) {
             return Optional.empty();
         }
         
+        return existenceFilter.lookup(ExistenceFilter.KeySpace.USERNAMES, username, () -> readByUsername(username));
+    }
+
+    private Optional<User> readByUsername(String username) throws ExecutionException, InterruptedException {
+        DocumentSnapshot reservation = usernameRef(username).get().get();
+        if (reservation.exists()) {
+            return findById(reservation.getString("userId"));
+        }
+        
+        return queryFallback ? findOneWhere("username", username.trim()) : Optional.empty();
+    }
+
+    /**
+     * Trouve un utilisateur par nom d'utilisateur ou email
+     * Les deux réservations sont lues en un seul aller-retour, le nom d'utilisateur est prioritaire
+     */
+    public Optional<User> findByLogin(String usernameOrEmail) throws ExecutionException, InterruptedException {
+        if (usernameOrEmail == null || usernameOrEmail.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        if (!existenceFilter.mightExist(ExistenceFilter.KeySpace.USERNAMES, usernameOrEmail)
+                && !existenceFilter.mightExist(ExistenceFilter.KeySpace.EMAILS, usernameOrEmail)) {
+            return Optional.empty();
+        }
+        
+        List<DocumentSnapshot> reservations = firestore.getAll(usernameRef(usernameOrEmail), emailRef(usernameOrEmail)).get();
+        for (DocumentSnapshot reservation : reservations) {
+            if (reservation.exists()) {
+                return findById(reservation.getString("userId"));
+            }
+        }
+        
+        if (!queryFallback) {
+            return Optional.empty();
+        }
+        Optional<User> user = findOneWhere("username", usernameOrEmail.trim());
+        return user.isPresent() ? user : findOneWhere("email", normalizeEmail(usernameOrEmail));
+    }
+
+    private Optional<User> findOneWhere(String field, String value) throws ExecutionException, InterruptedException {
         CollectionReference users = firestore.collection(COLLECTION_NAME);
-        Query query = users.whereEqualTo("username", username.trim());
+        Query query = users.whereEqualTo(field, value).limit(1);
         ApiFuture<QuerySnapshot> querySnapshot = query.get();
         
         List<QueryDocumentSnapshot> documents = querySnapshot.get().getDocuments();
@@ -102,6 +258,7 @@ public class UserRepository {
             QueryDocumentSnapshot document = documents.get(0);
             User user = document.toObject(User.class);
             user.setId(document.getId());
+            user.setVersion(document.getUpdateTime().toString());
             return Optional.of(user);
         }
         
@@ -120,12 +277,27 @@ public class UserRepository {
         for (QueryDocumentSnapshot document : documents) {
             User user = document.toObject(User.class);
             user.setId(document.getId());
+            user.setVersion(document.getUpdateTime().toString());
             userList.add(user);
         }
         
         return userList;
     }
 
+    /**
+     * Parcourt tous les utilisateurs en parallèle, partition par partition.
+     * Le callback est appelé depuis plusieurs threads.
+     */
+    public PartitionedScanner.ScanProgress scanAll(int partitions, Consumer<User> callback,
+                                                   PartitionedScanner.ScanProgressListener listener) throws ExecutionException, InterruptedException {
+        return scanner.scan(COLLECTION_NAME, partitions, document -> {
+            User user = document.toObject(User.class);
+            user.setId(document.getId());
+            user.setVersion(document.getUpdateTime().toString());
+            return user;
+        }, callback, listener);
+    }
+
     /**
      * Récupère tous les utilisateurs actifs
      */
@@ -139,6 +311,7 @@ public class UserRepository {
         for (QueryDocumentSnapshot document : documents) {
             User user = document.toObject(User.class);
             user.setId(document.getId());
+            user.setVersion(document.getUpdateTime().toString());
             userList.add(user);
         }
         
@@ -146,7 +319,91 @@ public class UserRepository {
     }
 
     /**
-     * Supprime un utilisateur par son ID
+     * Utilisateurs actifs, lus page par page au fil de l'itération (rendu de la liste en flux)
+     */
+    public Iterable<User> streamActive() {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("enabled", true)
+                .orderBy(FieldPath.documentId());
+        return new PagedQuery<>(query, streamingPageSize, document -> {
+            User user = document.toObject(User.class);
+            user.setId(document.getId());
+            user.setVersion(document.getUpdateTime().toString());
+            return user;
+        });
+    }
+
+    /**
+     * Met à jour partiellement un utilisateur (uniquement les champs fournis)
+     * Sans changement de nom d'utilisateur ni d'email, aucune lecture n'est faite ;
+     * sinon l'utilisateur est relu pour déplacer ses réservations dans le même batch
+     * Retourne la nouvelle version du document, ou vide si l'utilisateur n'existe pas
+     */
+    public Optional<String> patch(String id, Map<String, Object> fields, String expectedVersion) throws ExecutionException, InterruptedException {
+        if (id == null || id.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return applyPatch(id, fields, expectedVersion);
+        } finally {
+            versionCache.invalidate(COLLECTION_NAME, id);
+        }
+    }
+
+    private Optional<String> applyPatch(String id, Map<String, Object> fields, String expectedVersion) throws ExecutionException, InterruptedException {
+
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
+        String newUsername = (String) fields.get("username");
+        String newEmail = (String) fields.get("email");
+        if (newUsername == null && newEmail == null) {
+            return DocumentPatch.apply(docRef, fields, expectedVersion);
+        }
+
+        DocumentSnapshot current = docRef.get().get();
+        if (!current.exists()) {
+            return Optional.empty();
+        }
+        if (expectedVersion != null && !DocumentPatch.isAnyVersion(expectedVersion) && !current.getUpdateTime().equals(DocumentPatch.parseVersion(expectedVersion))) {
+            throw new ConcurrentModificationException("Le document a été modifié depuis la version " + expectedVersion);
+        }
+
+        String oldUsername = current.getString("username");
+        String oldEmail = current.getString("email");
+        boolean usernameChanged = newUsername != null && !usernameKey(newUsername).equals(usernameKey(oldUsername));
+        boolean emailChanged = newEmail != null && !emailKey(newEmail).equals(emailKey(oldEmail));
+
+        if (emailChanged && findByEmail(newEmail).isPresent()) {
+            throw new RuntimeException("Un utilisateur avec cet email existe déjà");
+        }
+        if (usernameChanged && findByUsername(newUsername).isPresent()) {
+            throw new RuntimeException("Ce nom d'utilisateur est déjà pris");
+        }
+
+        // La version lue sert de précondition : les anciennes réservations sont toujours valides au commit,
+        // et create() échoue si une nouvelle réservation a été prise entre-temps
+        Optional<String> version = DocumentPatch.apply(docRef, fields, current.getUpdateTime().toString(), batch -> {
+            if (usernameChanged) {
+                batch.create(usernameRef(newUsername), reservation(id));
+                if (oldUsername != null) {
+                    batch.delete(usernameRef(oldUsername));
+                }
+            }
+            if (emailChanged) {
+                batch.create(emailRef(newEmail), reservation(id));
+                if (oldEmail != null) {
+                    batch.delete(emailRef(oldEmail));
+                }
+            }
+        });
+        if (version.isPresent()) {
+            recordLoginWrite(usernameChanged ? newUsername : null, emailChanged ? newEmail : null);
+        }
+        return version;
+    }
+
+    /**
+     * Supprime un utilisateur par son ID, avec ses réservations
      */
     public boolean deleteById(String id) throws ExecutionException, InterruptedException {
         if (id == null || id.isEmpty()) {
@@ -154,8 +411,26 @@ public class UserRepository {
         }
         
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
-        ApiFuture<WriteResult> result = docRef.delete();
-        result.get();
+        runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(docRef).get();
+            if (current.exists()) {
+                List<DocumentReference> reservations = new ArrayList<>();
+                if (current.getString("username") != null) {
+                    reservations.add(usernameRef(current.getString("username")));
+                }
+                if (current.getString("email") != null) {
+                    reservations.add(emailRef(current.getString("email")));
+                }
+                for (DocumentSnapshot reservation : transaction.getAll(reservations.toArray(new DocumentReference[0])).get()) {
+                    if (id.equals(reservation.getString("userId"))) {
+                        transaction.delete(reservation.getReference());
+                    }
+                }
+            }
+            transaction.delete(docRef);
+            return null;
+        });
+        versionCache.invalidate(COLLECTION_NAME, id);
         return true;
     }
 
@@ -189,5 +464,85 @@ public class UserRepository {
         DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(userId);
         ApiFuture<WriteResult> result = docRef.update("enabled", enabled);
         result.get();
+        versionCache.invalidate(COLLECTION_NAME, userId);
+    }
+
+    /**
+     * Crée les réservations manquantes des utilisateurs existants
+     * Les doublons hérités (même nom ou email) sont ignorés et gardent la première réservation
+     * Retourne le nombre de réservations créées
+     */
+    public long backfillLoginIndex(int partitions, PartitionedScanner.ScanProgressListener listener) throws ExecutionException, InterruptedException {
+        List<ApiFuture<WriteResult>> creations = new CopyOnWriteArrayList<>();
+        scanAll(partitions, user -> {
+            if (user.getUsername() != null && !user.getUsername().trim().isEmpty()) {
+                creations.add(usernameRef(user.getUsername()).create(reservation(user.getId())));
+            }
+            if (user.getEmail() != null && !user.getEmail().trim().isEmpty()) {
+                creations.add(emailRef(user.getEmail()).create(reservation(user.getId())));
+            }
+        }, listener);
+
+        return ApiFutures.successfulAsList(creations).get().stream()
+                .filter(Objects::nonNull)
+                .count();
+    }
+
+    // Méthodes utilitaires
+    private boolean isTaken(Transaction transaction, DocumentReference reservationRef, String field, String value, String userId)
+            throws ExecutionException, InterruptedException {
+        DocumentSnapshot reservation = transaction.get(reservationRef).get();
+        if (reservation.exists()) {
+            return !userId.equals(reservation.getString("userId"));
+        }
+        if (!queryFallback) {
+            return false;
+        }
+        Query query = firestore.collection(COLLECTION_NAME).whereEqualTo(field, value).limit(1);
+        return transaction.get(query).get().getDocuments().stream()
+                .anyMatch(document -> !document.getId().equals(userId));
+    }
+
+    private <T> T runTransaction(Transaction.Function<T> function) throws ExecutionException, InterruptedException {
+        try {
+            return firestore.runTransaction(function).get();
+        } catch (ExecutionException e) {
+            // Remonter telles quelles les erreurs métier levées dans la transaction
+            if (e.getCause() instanceof RuntimeException runtime && !(runtime instanceof FirestoreException)
+                    && !(runtime instanceof ApiException)) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private void recordLoginWrite(String username, String email) {
+        existenceFilter.recordWrite(ExistenceFilter.KeySpace.USERNAMES, username);
+        existenceFilter.recordWrite(ExistenceFilter.KeySpace.EMAILS, email);
+    }
+
+    private Map<String, Object> reservation(String userId) {
+        return Map.of("userId", userId);
+    }
+
+    private DocumentReference usernameRef(String username) {
+        return firestore.collection(USERNAMES_COLLECTION).document(usernameKey(username));
+    }
+
+    private DocumentReference emailRef(String email) {
+        return firestore.collection(EMAILS_COLLECTION).document(emailKey(email));
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase().trim();
+    }
+
+    // Les identifiants de documents ne peuvent pas contenir de "/"
+    private static String usernameKey(String username) {
+        return username == null ? "" : URLEncoder.encode(username.trim(), StandardCharsets.UTF_8);
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? "" : URLEncoder.encode(normalizeEmail(email), StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,82 @@
+package com.example.recipeapp.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des versions connues des documents (date de dernière écriture côté serveur).
+ * Il permet de répondre 304 à une revalidation HTTP sans lire ni désérialiser le document.
+ * Les repositories invalident l'entrée à chaque écriture ; la durée de vie borne le retard
+ * sur les écritures faites par une autre instance. Les entrées expirées sont purgées périodiquement.
+ */
+@Component
+public class VersionCache {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    @Value("${recipe-app.version-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, Entry> versions = new ConcurrentHashMap<>();
+
+    // Incrémenté à chaque invalidation : une version lue avant une écriture n'est pas mise en cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Marqueur à prendre avant une lecture, puis à passer à put()
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public Optional<String> get(String collection, String id) {
+        Entry entry = versions.get(key(collection, id));
+        if (entry == null || System.nanoTime() - entry.expiresAt() >= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.version());
+    }
+
+    public void put(String collection, String id, String version, long stamp) {
+        if (version == null) {
+            return;
+        }
+        String key = key(collection, id);
+        // Cache plein : la version n'est pas retenue jusqu'à la prochaine purge
+        if (versions.size() >= MAX_ENTRIES && !versions.containsKey(key)) {
+            return;
+        }
+        long now = System.nanoTime();
+        versions.put(key, new Entry(version, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        if (invalidations.get() != stamp) {
+            versions.remove(key);
+        }
+    }
+
+    /**
+     * Retire les versions expirées, hors des requêtes
+     */
+    @Scheduled(fixedDelayString = "${recipe-app.cache-eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        versions.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+    }
+
+    public void invalidate(String collection, String id) {
+        invalidations.incrementAndGet();
+        versions.remove(key(collection, id));
+    }
+
+    private static String key(String collection, String id) {
+        return collection + "/" + id;
+    }
+
+    private record Entry(String version, long expiresAt) {
+    }
+}
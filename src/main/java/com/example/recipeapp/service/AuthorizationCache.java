@@ -0,0 +1,139 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.User;
+import com.example.recipeapp.repository.RecipeRepository;
+import com.example.recipeapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des données d'autorisation : auteur de chaque recette et droits de chaque utilisateur.
+ * Les entrées sont invalidées par les AuthorizationChangedEvent publiés lors des écritures ;
+ * la durée de vie ne sert que de filet de sécurité pour les écritures faites par une autre instance.
+ * Les entrées expirées sont purgées périodiquement ; le cache plein n'accepte plus de nouvelle entrée.
+ */
+@Service
+public class AuthorizationCache {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${recipe-app.authorization-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, Entry<String>> recipeAuthors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry<UserAccess>> userAccess = new ConcurrentHashMap<>();
+
+    // Incrémenté à chaque invalidation : une lecture Firestore commencée avant n'est pas mise en cache
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Vérifie si un utilisateur peut modifier une recette (auteur ou administrateur actif)
+     */
+    public boolean canEditRecipe(String userId, String recipeId) throws ExecutionException, InterruptedException {
+        if (userId == null || recipeId == null) {
+            return false;
+        }
+
+        Optional<String> authorId = getRecipeAuthor(recipeId);
+        if (authorId.isEmpty()) {
+            return false;
+        }
+
+        Optional<UserAccess> access = getUserAccess(userId);
+        if (access.isEmpty() || !access.get().enabled()) {
+            return false;
+        }
+        return authorId.get().equals(userId) || access.get().admin();
+    }
+
+    /**
+     * Invalide les entrées concernées par une modification
+     */
+    @EventListener
+    public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.getSubject() == AuthorizationChangedEvent.Subject.USER) {
+            userAccess.remove(event.getId());
+        } else {
+            recipeAuthors.remove(event.getId());
+        }
+    }
+
+    private Optional<String> getRecipeAuthor(String recipeId) throws ExecutionException, InterruptedException {
+        Entry<String> cached = recipeAuthors.get(recipeId);
+        if (cached != null && !cached.isExpired(System.nanoTime())) {
+            return Optional.ofNullable(cached.value());
+        }
+
+        long loadGeneration = generation.get();
+        Optional<String> authorId = recipeRepository.findHeaderById(recipeId).map(Recipe::getAuthorId);
+        put(recipeAuthors, recipeId, authorId.orElse(null), loadGeneration);
+        return authorId;
+    }
+
+    private Optional<UserAccess> getUserAccess(String userId) throws ExecutionException, InterruptedException {
+        Entry<UserAccess> cached = userAccess.get(userId);
+        if (cached != null && !cached.isExpired(System.nanoTime())) {
+            return Optional.ofNullable(cached.value());
+        }
+
+        long loadGeneration = generation.get();
+        Optional<UserAccess> access = userRepository.findById(userId)
+            .map(user -> new UserAccess(user.isAdmin(), user.isEnabled()));
+        put(userAccess, userId, access.orElse(null), loadGeneration);
+        return access;
+    }
+
+    /**
+     * Retire les entrées expirées, hors des requêtes
+     */
+    @Scheduled(fixedDelayString = "${recipe-app.cache-eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        recipeAuthors.values().removeIf(entry -> entry.isExpired(now));
+        userAccess.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private <T> void put(ConcurrentHashMap<String, Entry<T>> cache, String key, T value, long loadGeneration) {
+        long now = System.nanoTime();
+        if (cache.size() >= MAX_ENTRIES && !cache.containsKey(key)) {
+            return;
+        }
+        cache.put(key, new Entry<>(value, now + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        // Une invalidation arrivée pendant la lecture rend la valeur potentiellement périmée
+        if (generation.get() != loadGeneration) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * Droits d'un utilisateur utiles aux contrôles d'autorisation
+     */
+    private record UserAccess(boolean admin, boolean enabled) {
+    }
+
+    /**
+     * Entrée de cache ; une valeur nulle mémorise l'absence du document
+     */
+    private record Entry<T>(T value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
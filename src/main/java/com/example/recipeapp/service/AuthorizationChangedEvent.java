@@ -0,0 +1,29 @@
+package com.example.recipeapp.service;
+
+/**
+ * Événement publié quand une donnée utilisée par les contrôles d'autorisation change
+ * (rôles ou statut d'un utilisateur, auteur d'une recette, suppression).
+ */
+public class AuthorizationChangedEvent {
+
+    public enum Subject { USER, RECIPE }
+
+    private final Subject subject;
+    private final String id;
+
+    public AuthorizationChangedEvent(Subject subject, String id) {
+        this.subject = subject;
+        this.id = id;
+    }
+
+    public static AuthorizationChangedEvent user(String userId) {
+        return new AuthorizationChangedEvent(Subject.USER, userId);
+    }
+
+    public static AuthorizationChangedEvent recipe(String recipeId) {
+        return new AuthorizationChangedEvent(Subject.RECIPE, recipeId);
+    }
+
+    public Subject getSubject() { return subject; }
+    public String getId() { return id; }
+}
@@ -0,0 +1,18 @@
+package com.example.recipeapp.service;
+
+import java.util.List;
+
+/**
+ * Index d'un bundle du catalogue : fichier NDJSON compressé, immuable, nommé d'après son empreinte.
+ * Chaque partie est un membre gzip autonome, téléchargeable seul par une requête Range (offset, length) ;
+ * token est le jeton de synchronisation différentielle à partir duquel le bundle est à jour.
+ */
+public record CatalogBundle(String hash, String url, long size, String token, String generatedAt,
+                            int recipes, int categories, List<Part> parts) {
+
+    /**
+     * Partie du bundle : catégories, ou recettes d'un compartiment d'ID
+     */
+    public record Part(String name, long offset, long length, int count, String hash) {
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Category;
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeDelta;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bundles téléchargeables du catalogue publié (catégories actives et recettes publiées), en NDJSON gzip.
+ * Les recettes sont réparties en compartiments selon leur ID, chacun compressé en un membre gzip séparé :
+ * à chaque reconstruction, seuls les changements depuis le bundle précédent sont lus
+ * (synchronisation différentielle) et seuls les compartiments touchés sont recompressés.
+ * Les fichiers sont servis comme ressources statiques sous /bundles (requêtes Range acceptées).
+ * Chaque instance construit et nettoie ses propres bundles : l'index d'une instance désigne des fichiers
+ * que les autres n'ont pas (404). Réservé à un déploiement sur une seule instance, ou derrière un
+ * répartiteur qui envoie /api/catalog et /bundles à la même instance ; un répertoire partagé
+ * entre instances n'est pas pris en charge (chacune y supprimerait les bundles des autres).
+ */
+@Service
+public class CatalogBundleService {
+
+    public static final String URL_PREFIX = "/bundles/";
+
+    private static final int CHANGES_PAGE_SIZE = 500;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${recipe-app.catalog-bundle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recipe-app.catalog-bundle.directory:}")
+    private String directoryName;
+
+    @Value("${recipe-app.catalog-bundle.parts:32}")
+    private int partCount;
+
+    @Value("${recipe-app.catalog-bundle.keep:3}")
+    private int keep;
+
+    private Path directory;
+    private volatile CatalogBundle current;
+
+    // État de la reconstruction, utilisé par le seul thread planifié
+    private String token;
+    private byte[] categoriesPart;
+    private byte[][] recipeParts;
+    private int[] recipeCounts;
+    private final Map<Integer, Map<String, byte[]>> pending = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = directoryName.isBlank()
+                    ? Files.createTempDirectory("recipe-app-bundles")
+                    : Files.createDirectories(Path.of(directoryName));
+        } catch (IOException e) {
+            System.err.println("❌ Répertoire des bundles indisponible, bundles désactivés : " + e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Répertoire des fichiers de bundle, servis sous URL_PREFIX
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Dernier bundle publié, ou null avant la première construction
+     */
+    public CatalogBundle current() {
+        return current;
+    }
+
+    /**
+     * Applique les changements depuis le bundle précédent et publie un nouveau bundle si le contenu a changé
+     */
+    @Scheduled(initialDelayString = "${recipe-app.catalog-bundle.initial-delay-ms:20000}",
+               fixedDelayString = "${recipe-app.catalog-bundle.refresh-interval-ms:300000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            boolean changed = readCategories();
+            changed |= readRecipeChanges();
+            if (changed || current == null) {
+                publish();
+            }
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            System.err.println("❌ Construction du bundle du catalogue impossible : " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean readCategories() throws ExecutionException, InterruptedException, IOException {
+        List<Category> categories = new ArrayList<>(categoryService.findAllActive());
+        categories.sort(Comparator.comparing(Category::getId));
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (Category category : categories) {
+            lines.write(objectMapper.writeValueAsBytes(category));
+            lines.write('\n');
+        }
+        byte[] part = gzip(lines.toByteArray());
+        if (Arrays.equals(part, categoriesPart)) {
+            return false;
+        }
+        categoriesPart = part;
+        return true;
+    }
+
+    private boolean readRecipeChanges() throws ExecutionException, InterruptedException, IOException {
+        RecipeDelta delta;
+        try {
+            delta = recipeService.changesSince(token, CHANGES_PAGE_SIZE);
+        } catch (SyncTokenExpiredException e) {
+            // Suppressions trop anciennes pour être connues : reconstruction complète
+            token = null;
+            delta = recipeService.changesSince(null, CHANGES_PAGE_SIZE);
+        }
+        if (token == null) {
+            recipeParts = new byte[partCount][];
+            recipeCounts = new int[partCount];
+            pending.clear();
+            for (int i = 0; i < partCount; i++) {
+                pending.put(i, new HashMap<>());
+            }
+        }
+
+        boolean changed = false;
+        while (true) {
+            for (Recipe recipe : delta.changed()) {
+                pending.computeIfAbsent(partOf(recipe.getId()), p -> new HashMap<>())
+                        .put(recipe.getId(), objectMapper.writeValueAsBytes(recipe));
+                changed = true;
+            }
+            for (String id : delta.deleted()) {
+                pending.computeIfAbsent(partOf(id), p -> new HashMap<>()).put(id, null);
+                changed = true;
+            }
+            token = delta.token();
+            if (!delta.hasMore()) {
+                return changed;
+            }
+            delta = recipeService.changesSince(token, CHANGES_PAGE_SIZE);
+        }
+    }
+
+    private void publish() throws IOException {
+        for (Map.Entry<Integer, Map<String, byte[]>> entry : pending.entrySet()) {
+            rebuildPart(entry.getKey(), entry.getValue());
+        }
+        pending.clear();
+
+        MessageDigest bundleDigest = sha256();
+        List<CatalogBundle.Part> parts = new ArrayList<>(partCount + 1);
+        long offset = 0;
+        int categoryCount = countLines(categoriesPart);
+        parts.add(part("categories", offset, categoriesPart, categoryCount, bundleDigest));
+        offset += categoriesPart.length;
+        int recipeCount = 0;
+        for (int i = 0; i < partCount; i++) {
+            parts.add(part("recipes-" + i, offset, recipeParts[i], recipeCounts[i], bundleDigest));
+            offset += recipeParts[i].length;
+            recipeCount += recipeCounts[i];
+        }
+        String hash = HexFormat.of().formatHex(bundleDigest.digest(), 0, 16);
+        if (current != null && current.hash().equals(hash)) {
+            return;
+        }
+
+        // Membres gzip concaténés : le fichier entier reste un flux gzip valide
+        String name = "catalog-" + hash + ".ndjson.gz";
+        Path temporary = directory.resolve(name + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            out.write(categoriesPart);
+            for (byte[] part : recipeParts) {
+                out.write(part);
+            }
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        current = new CatalogBundle(hash, URL_PREFIX + name, offset, token, Instant.now().toString(),
+                recipeCount, categoryCount, List.copyOf(parts));
+        System.out.println("📦 Bundle du catalogue publié : " + name + " (" + recipeCount + " recettes, "
+                + offset + " octets)");
+        deleteOldBundles();
+    }
+
+    /**
+     * Recompresse un compartiment avec ses changements : lignes existantes décompressées, remplacées
+     * ou retirées par ID, puis triées par ID pour un contenu (et une empreinte) déterministe
+     */
+    private void rebuildPart(int index, Map<String, byte[]> changes) throws IOException {
+        TreeMap<String, byte[]> lines = new TreeMap<>();
+        if (recipeParts[index] != null) {
+            for (byte[] line : splitLines(gunzip(recipeParts[index]))) {
+                lines.put(objectMapper.readTree(line).path("id").asText(), line);
+            }
+        }
+        for (Map.Entry<String, byte[]> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                lines.remove(change.getKey());
+            } else {
+                lines.put(change.getKey(), change.getValue());
+            }
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] line : lines.values()) {
+            content.write(line);
+            content.write('\n');
+        }
+        recipeParts[index] = gzip(content.toByteArray());
+        recipeCounts[index] = lines.size();
+    }
+
+    private void deleteOldBundles() throws IOException {
+        // Les bundles précédents restent servis un moment : des téléchargements par plages peuvent être en cours
+        List<Path> bundles;
+        try (Stream<Path> files = Files.list(directory)) {
+            bundles = files.filter(file -> file.getFileName().toString().endsWith(".ndjson.gz"))
+                    .sorted(Comparator.comparing((Path file) -> file.toFile().lastModified()).reversed())
+                    .toList();
+        }
+        for (Path file : bundles.subList(Math.min(keep, bundles.size()), bundles.size())) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private int partOf(String id) {
+        return Math.floorMod(id.hashCode(), partCount);
+    }
+
+    private static CatalogBundle.Part part(String name, long offset, byte[] bytes, int count, MessageDigest bundleDigest) {
+        byte[] digest = sha256().digest(bytes);
+        bundleDigest.update(digest);
+        return new CatalogBundle.Part(name, offset, bytes.length, count, HexFormat.of().formatHex(digest, 0, 16));
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static List<byte[]> splitLines(byte[] content) {
+        List<byte[]> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                lines.add(Arrays.copyOfRange(content, start, i));
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    private static int countLines(byte[] gzip) throws IOException {
+        return splitLines(gunzip(gzip)).size();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.recipeapp.service;
 import com.example.recipeapp.model.Category;
 import com.example.recipeapp.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -19,6 +20,9 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Crée une nouvelle catégorie
      */
@@ -43,7 +47,9 @@ public class CategoryService {
         }
         category.setUpdatedAt(now);
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(ContentChangedEvent.category(savedCategory.getId()));
+        return savedCategory;
     }
 
     /**
@@ -69,7 +75,9 @@ public class CategoryService {
             throw new RuntimeException("Une catégorie avec ce slug existe déjà");
         }
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(ContentChangedEvent.category(category.getId()));
+        return savedCategory;
     }
 
     /**
@@ -79,6 +87,13 @@ public class CategoryService {
         return categoryRepository.findById(id);
     }
 
+    /**
+     * Retourne la dernière version connue d'une catégorie, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return categoryRepository.findCachedVersion(id);
+    }
+
     /**
      * Trouve une catégorie par son nom
      */
@@ -113,7 +128,9 @@ public class CategoryService {
      */
     public boolean deleteCategory(String id) throws ExecutionException, InterruptedException {
         // TODO: Ajouter une vérification pour s'assurer qu'aucune recette n'utilise cette catégorie
-        return categoryRepository.deleteById(id);
+        boolean deleted = categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(ContentChangedEvent.category(id));
+        return deleted;
     }
 
     /**
@@ -121,6 +138,7 @@ public class CategoryService {
      */
     public void updateCategoryStatus(String categoryId, boolean active) throws ExecutionException, InterruptedException {
         categoryRepository.updateCategoryStatus(categoryId, active);
+        eventPublisher.publishEvent(ContentChangedEvent.category(categoryId));
     }
 
     /**
@@ -0,0 +1,67 @@
+package com.example.recipeapp.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Événement publié après une écriture visible dans les pages HTML.
+ * Il porte les étiquettes des contenus touchés ("recipe:id", "category:id", "user:id", "latest") :
+ * le cache de pages purge exactement les pages qui dépendent de l'une d'elles.
+ */
+public class ContentChangedEvent {
+
+    /** Page d'accueil : dernières recettes et compteurs globaux */
+    public static final String LATEST = "latest";
+
+    private final Set<String> tags;
+
+    public ContentChangedEvent(Set<String> tags) {
+        this.tags = Collections.unmodifiableSet(tags);
+    }
+
+    /**
+     * Recette modifiée, avec ses catégories avant et après l'écriture (les valeurs nulles sont ignorées)
+     */
+    public static ContentChangedEvent recipe(String recipeId, String... categoryIds) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(recipeTag(recipeId));
+        for (String categoryId : categoryIds) {
+            if (categoryId != null) {
+                tags.add(categoryTag(categoryId));
+            }
+        }
+        tags.add(LATEST);
+        return new ContentChangedEvent(tags);
+    }
+
+    public static ContentChangedEvent category(String categoryId) {
+        return new ContentChangedEvent(Set.of(categoryTag(categoryId), LATEST));
+    }
+
+    public static ContentChangedEvent user(String userId) {
+        return new ContentChangedEvent(Set.of(userTag(userId), LATEST));
+    }
+
+    /**
+     * Favori ajouté ou retiré : compteur de la recette et liste des favoris de l'utilisateur
+     */
+    public static ContentChangedEvent favorite(String userId, String recipeId) {
+        return new ContentChangedEvent(Set.of(recipeTag(recipeId), userTag(userId)));
+    }
+
+    public static String recipeTag(String recipeId) {
+        return "recipe:" + Objects.requireNonNull(recipeId);
+    }
+
+    public static String categoryTag(String categoryId) {
+        return "category:" + Objects.requireNonNull(categoryId);
+    }
+
+    public static String userTag(String userId) {
+        return "user:" + Objects.requireNonNull(userId);
+    }
+
+    public Set<String> getTags() { return tags; }
+}
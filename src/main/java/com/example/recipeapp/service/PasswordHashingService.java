@@ -0,0 +1,151 @@
+package com.example.recipeapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Service de hachage des mots de passe.
+ * BCrypt coûte volontairement ~100 ms de CPU : les calculs sont exécutés sur un pool dédié,
+ * borné au nombre de cœurs et à une file d'attente limitée, pour ne jamais monopoliser
+ * les threads HTTP. Quand la file est pleine, les demandes sont refusées immédiatement
+ * (RejectedExecutionException) et les tentatives abusives sont bloquées avant tout calcul.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${recipe-app.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${recipe-app.password-hashing.account-attempts-per-minute:10}")
+    private int accountAttemptsPerMinute;
+
+    @Value("${recipe-app.password-hashing.ip-attempts-per-minute:30}")
+    private int ipAttemptsPerMinute;
+
+    private ThreadPoolExecutor executor;
+    private SlidingWindowRateLimiter accountLimiter;
+    private SlidingWindowRateLimiter ipLimiter;
+
+    private Timer matchesTimer;
+    private Timer encodeTimer;
+    private Timer queueWaitTimer;
+    private Counter saturatedCounter;
+    private Counter accountThrottledCounter;
+    private Counter ipThrottledCounter;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        accountLimiter = new SlidingWindowRateLimiter(accountAttemptsPerMinute, TimeUnit.MINUTES.toMillis(1));
+        ipLimiter = new SlidingWindowRateLimiter(ipAttemptsPerMinute, TimeUnit.MINUTES.toMillis(1));
+
+        Gauge.builder("auth.hash.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Calculs BCrypt en attente d'un thread")
+            .register(meterRegistry);
+        Gauge.builder("auth.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Calculs BCrypt en cours")
+            .register(meterRegistry);
+        matchesTimer = Timer.builder("auth.hash.latency").tag("operation", "matches").register(meterRegistry);
+        encodeTimer = Timer.builder("auth.hash.latency").tag("operation", "encode").register(meterRegistry);
+        queueWaitTimer = Timer.builder("auth.hash.queue.wait").register(meterRegistry);
+        saturatedCounter = Counter.builder("auth.hash.rejected").tag("reason", "saturated").register(meterRegistry);
+        accountThrottledCounter = Counter.builder("auth.hash.rejected").tag("reason", "account").register(meterRegistry);
+        ipThrottledCounter = Counter.builder("auth.hash.rejected").tag("reason", "ip").register(meterRegistry);
+    }
+
+    /**
+     * Purge les compteurs de tentatives expirés
+     */
+    @Scheduled(fixedDelayString = "${recipe-app.password-hashing.limiter-eviction-interval-ms:60000}")
+    public void evictExpiredAttempts() {
+        accountLimiter.evictExpired();
+        ipLimiter.evictExpired();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Vérifie qu'une tentative de connexion n'est pas abusive, avant tout calcul BCrypt
+     * Lève une TooManyAttemptsException si le compte ou l'adresse IP dépasse sa limite
+     */
+    public void checkAttempt(String account, String clientIp) {
+        if (clientIp != null && !ipLimiter.tryAcquire(clientIp)) {
+            ipThrottledCounter.increment();
+            throw new TooManyAttemptsException("Trop de tentatives depuis cette adresse", ipLimiter.getWindowSeconds());
+        }
+        if (account != null && !accountLimiter.tryAcquire(account.toLowerCase().trim())) {
+            accountThrottledCounter.increment();
+            throw new TooManyAttemptsException("Trop de tentatives pour ce compte", accountLimiter.getWindowSeconds());
+        }
+    }
+
+    /**
+     * Vérifie un mot de passe sur le pool dédié
+     */
+    public boolean matches(String rawPassword, String encodedPassword) throws ExecutionException, InterruptedException {
+        return execute(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Encode un mot de passe sur le pool dédié
+     */
+    public String encode(String rawPassword) throws ExecutionException, InterruptedException {
+        return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> T execute(Timer timer, Supplier<T> task) throws ExecutionException, InterruptedException {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            saturatedCounter.increment();
+            throw new RejectedExecutionException("Service d'authentification saturé, réessayez plus tard");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Migration des recettes existantes vers le format en-tête + corps.
+ * Activée par recipe-app.migrations.split-recipe-body=true ; peut être relancée sans risque.
+ */
+@Service
+@ConditionalOnProperty(name = "recipe-app.migrations.split-recipe-body", havingValue = "true")
+public class RecipeBodyMigrationJob implements CommandLineRunner {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Value("${recipe-app.migrations.partitions:8}")
+    private int partitions;
+
+    @Override
+    public void run(String... args) throws Exception {
+        System.out.println("🔧 Migration du corps des recettes vers recipes/{id}/content/body...");
+        long migrated = recipeRepository.migrateBodies(partitions,
+            progress -> System.out.println("   " + progress));
+        System.out.println("✅ " + migrated + " recette(s) migrée(s)");
+    }
+}
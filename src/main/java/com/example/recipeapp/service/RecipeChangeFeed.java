@@ -0,0 +1,107 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.RecipeChanges;
+import com.example.recipeapp.repository.RecipeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Changements de recettes en direct, partagés entre abonnés : un seul écouteur Firestore par périmètre
+ * (dernières recettes publiées, ou une recette), ouvert au premier abonné et fermé après le dernier.
+ * Chaque abonné reçoit d'abord l'état courant, puis les changements, via un tampon borné :
+ * un abonné trop lent pour le vider est déconnecté sans ralentir les autres.
+ * Le nombre d'écouteurs ouverts est plafonné (max-listeners).
+ */
+@Service
+public class RecipeChangeFeed {
+
+    private static final String LATEST_SCOPE = "latest";
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${recipe-app.change-feed.latest-size:20}")
+    private int latestSize;
+
+    @Value("${recipe-app.change-feed.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${recipe-app.change-feed.max-listeners:1000}")
+    private int maxListeners;
+
+    private final ConcurrentHashMap<String, Flux<RecipeChanges>> scopes = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("change.feed.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("change.feed.listeners", scopes, ConcurrentHashMap::size).register(meterRegistry);
+        dropped = Counter.builder("change.feed.dropped").register(meterRegistry);
+    }
+
+    /**
+     * Changements des dernières recettes publiées
+     */
+    public Flux<RecipeChanges> latest() {
+        return subscribe(LATEST_SCOPE, () -> recipeRepository.listenLatest(latestSize));
+    }
+
+    /**
+     * Changements d'une recette
+     * Lève RejectedExecutionException si l'écoute n'est pas déjà ouverte et que le plafond est atteint
+     */
+    public Flux<RecipeChanges> recipe(String id) {
+        String scope = "recipe:" + id;
+        // Vérifié avant l'abonnement : deux premiers abonnés simultanés peuvent le dépasser de peu
+        if (!scopes.containsKey(scope) && scopes.size() >= maxListeners) {
+            throw new RejectedExecutionException("Nombre maximal d'écoutes de recettes atteint");
+        }
+        return subscribe(scope, () -> recipeRepository.listenRecipe(id));
+    }
+
+    private Flux<RecipeChanges> subscribe(String scope, Supplier<Flux<RecipeChanges>> listener) {
+        return Flux.defer(() -> scopes.computeIfAbsent(scope, s -> share(s, listener.get())))
+                // Le tampon demande sans limite au flux partagé : seul cet abonné subit son débordement
+                .onBackpressureBuffer(bufferSize, changes -> { }, BufferOverflowStrategy.ERROR)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet())
+                .onErrorResume(error -> {
+                    if (Exceptions.isOverflow(error)) {
+                        dropped.increment();
+                        System.err.println("⚠️ Abonné trop lent déconnecté du flux " + scope);
+                    } else {
+                        System.err.println("❌ Écoute Firestore du flux " + scope + " interrompue : " + error.getMessage());
+                    }
+                    return Flux.empty();
+                });
+    }
+
+    private Flux<RecipeChanges> share(String scope, Flux<RecipeChanges> listener) {
+        // replay(1) : un nouvel abonné reçoit le dernier instantané, donc l'état courant du périmètre
+        AtomicReference<Flux<RecipeChanges>> shared = new AtomicReference<>();
+        shared.set(listener
+                // Retire ce flux seulement : un flux plus récent du même périmètre reste enregistré
+                .doFinally(signal -> scopes.remove(scope, shared.get()))
+                .replay(1)
+                .refCount());
+        return shared.get();
+    }
+}
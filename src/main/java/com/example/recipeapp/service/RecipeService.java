@@ -1,12 +1,23 @@
 package com.example.recipeapp.service;
 
 import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.repository.RecipeChangeLog;
+import com.example.recipeapp.repository.RecipeDelta;
 import com.example.recipeapp.repository.RecipeRepository;
+import com.example.recipeapp.repository.SyncToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.cloud.Timestamp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -16,15 +27,50 @@ import java.util.concurrent.ExecutionException;
 @Service
 public class RecipeService {
 
+    /**
+     * Champs modifiables par une mise à jour partielle, avec leur type.
+     * Les compteurs (vues, notes, favoris) et l'auteur ne sont jamais écrits par un PATCH.
+     */
+    private static final Map<String, TypeReference<?>> PATCHABLE_FIELDS = Map.ofEntries(
+        Map.entry("title", new TypeReference<String>() {}),
+        Map.entry("description", new TypeReference<String>() {}),
+        Map.entry("ingredients", new TypeReference<List<Recipe.Ingredient>>() {}),
+        Map.entry("instructions", new TypeReference<List<Recipe.Instruction>>() {}),
+        Map.entry("categoryId", new TypeReference<String>() {}),
+        Map.entry("imageUrl", new TypeReference<String>() {}),
+        Map.entry("servings", new TypeReference<Integer>() {}),
+        Map.entry("prepTimeMinutes", new TypeReference<Integer>() {}),
+        Map.entry("cookTimeMinutes", new TypeReference<Integer>() {}),
+        Map.entry("difficulty", new TypeReference<Recipe.DifficultyLevel>() {}),
+        Map.entry("tags", new TypeReference<List<String>>() {}),
+        Map.entry("nutritionInfo", new TypeReference<Recipe.NutritionInfo>() {}),
+        Map.entry("published", new TypeReference<Boolean>() {})
+    );
+
     @Autowired
     private RecipeRepository recipeRepository;
 
+    @Autowired
+    private RecipeChangeLog changeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
     @Autowired
     private CategoryService categoryService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuthorizationCache authorizationCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Crée une nouvelle recette
      */
@@ -46,20 +92,24 @@ public class RecipeService {
         recipe.setViewCount(0);
 
         // Initialiser les dates
-        Date now = new Date();
+        Timestamp now = Timestamp.now();
         if (recipe.getCreatedAt() == null) {
             recipe.setCreatedAt(now);
         }
         recipe.setUpdatedAt(now);
 
-        return recipeRepository.save(recipe);
+        Recipe savedRecipe = recipeRepository.save(recipe);
+        // Un refus mis en cache pour cet ID (recette alors absente) ne doit pas survivre à la création
+        eventPublisher.publishEvent(AuthorizationChangedEvent.recipe(savedRecipe.getId()));
+        eventPublisher.publishEvent(ContentChangedEvent.recipe(savedRecipe.getId(), savedRecipe.getCategoryId()));
+        return savedRecipe;
     }
 
     /**
      * Met à jour une recette existante
      */
     public Recipe updateRecipe(Recipe recipe) throws ExecutionException, InterruptedException {
-        Optional<Recipe> existingRecipe = recipeRepository.findById(recipe.getId());
+        Optional<Recipe> existingRecipe = recipeRepository.findHeaderById(recipe.getId());
         if (existingRecipe.isEmpty()) {
             throw new RuntimeException("Recette non trouvée");
         }
@@ -77,11 +127,68 @@ public class RecipeService {
         recipe.setViewCount(existing.getViewCount());
         recipe.setCreatedAt(existing.getCreatedAt());
 
-        return recipeRepository.save(recipe);
+        Recipe savedRecipe = recipeRepository.save(recipe);
+        // Le remplacement complet peut changer l'auteur de la recette
+        eventPublisher.publishEvent(AuthorizationChangedEvent.recipe(recipe.getId()));
+        eventPublisher.publishEvent(ContentChangedEvent.recipe(recipe.getId(), existing.getCategoryId(), recipe.getCategoryId()));
+        return savedRecipe;
+    }
+
+    /**
+     * Met à jour partiellement une recette, sans relire le document.
+     * Si une version est attendue, l'écriture échoue (ConcurrentModificationException)
+     * lorsque la recette a été modifiée entre-temps.
+     */
+    public Optional<String> patchRecipe(String id, Map<String, Object> changes, String expectedVersion) throws ExecutionException, InterruptedException {
+        Map<String, Object> fields = new HashMap<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            TypeReference<?> type = PATCHABLE_FIELDS.get(change.getKey());
+            if (type == null) {
+                throw new RuntimeException("Champ non modifiable : " + change.getKey());
+            }
+
+            Object value = objectMapper.convertValue(change.getValue(), type);
+            if (!validator.validateValue(Recipe.class, change.getKey(), value).isEmpty() || !isValidNested(value)) {
+                throw new RuntimeException("Valeur invalide pour le champ " + change.getKey());
+            }
+            fields.put(change.getKey(), value);
+        }
+
+        if (fields.isEmpty()) {
+            throw new RuntimeException("Aucun champ à modifier");
+        }
+
+        // Vérifier que la catégorie existe (seulement si elle change)
+        if (fields.containsKey("categoryId") && categoryService.findById((String) fields.get("categoryId")).isEmpty()) {
+            throw new RuntimeException("Catégorie non trouvée");
+        }
+
+        // Ancienne catégorie relue seulement si elle change, pour purger la page qui listait la recette ;
+        // sinon la page de sa catégorie se met à jour à l'expiration du cache de pages
+        String newCategoryId = (String) fields.get("categoryId");
+        String previousCategoryId = newCategoryId == null ? null
+                : recipeRepository.findHeaderById(id).map(Recipe::getCategoryId).orElse(null);
+        Optional<String> version = recipeRepository.patch(id, fields, expectedVersion);
+        if (version.isPresent()) {
+            eventPublisher.publishEvent(ContentChangedEvent.recipe(id, previousCategoryId, newCategoryId));
+        }
+        return version;
+    }
+
+    /**
+     * validateValue ne descend pas dans les objets imbriqués : ingrédients, étapes
+     * et informations nutritionnelles sont validés un par un
+     */
+    private boolean isValidNested(Object value) {
+        if (value instanceof List<?> items) {
+            return items.stream().allMatch(item -> item != null && (item instanceof String || validator.validate(item).isEmpty()));
+        }
+        return !(value instanceof Recipe.NutritionInfo) || validator.validate(value).isEmpty();
     }
 
     /**
      * Trouve une recette par son ID et incrémente le compteur de vues
+     * Une vue ne change pas la version de la recette
      */
     public Optional<Recipe> findByIdAndIncrementViews(String id) throws ExecutionException, InterruptedException {
         Optional<Recipe> recipe = recipeRepository.findById(id);
@@ -92,6 +199,27 @@ public class RecipeService {
         return recipe;
     }
 
+    /**
+     * Compte une vue sur une recette sans la relire
+     */
+    public void recordView(String id) throws ExecutionException, InterruptedException {
+        recipeRepository.incrementViewCount(id);
+    }
+
+    /**
+     * Retourne la dernière version connue d'une recette, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return recipeRepository.findCachedVersion(id);
+    }
+
+    /**
+     * Vrai si la recette existe (en-tête seul, filtre d'existence consulté d'abord)
+     */
+    public boolean existsById(String id) throws ExecutionException, InterruptedException {
+        return recipeRepository.findHeaderById(id).isPresent();
+    }
+
     /**
      * Trouve une recette par son ID sans incrémenter les vues
      */
@@ -113,6 +241,72 @@ public class RecipeService {
         return recipeRepository.findAllPublished();
     }
 
+    /**
+     * Recettes publiées, lues au fil de l'itération
+     */
+    public Iterable<Recipe> streamPublished() {
+        return recipeRepository.streamPublished();
+    }
+
+    /**
+     * Recettes publiées d'une catégorie, lues au fil de l'itération
+     */
+    public Iterable<Recipe> streamByCategoryId(String categoryId) {
+        return recipeRepository.streamByCategoryId(categoryId);
+    }
+
+    /**
+     * Recettes publiées en flux réactif (lecture à la demande de l'abonné)
+     */
+    public Flux<Recipe> fluxPublished() {
+        return recipeRepository.fluxPublished();
+    }
+
+    /**
+     * Recettes publiées d'une catégorie en flux réactif
+     */
+    public Flux<Recipe> fluxByCategoryId(String categoryId) {
+        return recipeRepository.fluxByCategoryId(categoryId);
+    }
+
+    /**
+     * Changements de recettes depuis un jeton (synchronisation complète si null), par pages de limit.
+     * Si le filigrane du journal montre qu'aucun changement n'a eu lieu, répond sans aucune lecture.
+     */
+    public RecipeDelta changesSince(String token, int limit) throws ExecutionException, InterruptedException {
+        SyncToken since = token == null || token.isBlank() ? null : SyncToken.parse(token);
+        if (since != null) {
+            if (changeLog.isExpired(since)) {
+                throw new SyncTokenExpiredException("Jeton de synchronisation expiré, resynchronisation complète requise");
+            }
+            if (changeLog.unchangedSince(since)) {
+                return new RecipeDelta(List.of(), List.of(), token, false);
+            }
+        }
+        return recipeRepository.findChangesSince(since, limit);
+    }
+
+    /**
+     * Recette complète lue sans bloquer, sans compter de vue
+     */
+    public Mono<Recipe> monoById(String id) {
+        return recipeRepository.monoById(id);
+    }
+
+    /**
+     * Compte les recettes publiées d'une catégorie
+     */
+    public long countByCategoryId(String categoryId) throws ExecutionException, InterruptedException {
+        return recipeRepository.countByCategoryId(categoryId);
+    }
+
+    /**
+     * Compte toutes les recettes d'un auteur, publiées ou non
+     */
+    public long countByAuthorId(String authorId) throws ExecutionException, InterruptedException {
+        return recipeRepository.countByAuthorId(authorId);
+    }
+
     /**
      * Trouve les recettes par catégorie
      */
@@ -148,6 +342,13 @@ public class RecipeService {
         return recipeRepository.findTopRated(limit);
     }
 
+    /**
+     * Trouve les recettes publiées les plus vues
+     */
+    public List<Recipe> findMostViewed(int limit) throws ExecutionException, InterruptedException {
+        return recipeRepository.findMostViewed(limit);
+    }
+
     /**
      * Trouve les recettes les plus récentes
      */
@@ -166,21 +367,27 @@ public class RecipeService {
      * Supprime une recette
      */
     public boolean deleteRecipe(String id) throws ExecutionException, InterruptedException {
-        return recipeRepository.deleteById(id);
+        String categoryId = recipeRepository.findHeaderById(id).map(Recipe::getCategoryId).orElse(null);
+        boolean deleted = recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(AuthorizationChangedEvent.recipe(id));
+        eventPublisher.publishEvent(ContentChangedEvent.recipe(id, categoryId));
+        return deleted;
     }
 
     /**
      * Met à jour le statut de publication d'une recette
      */
     public void updatePublishedStatus(String recipeId, boolean published) throws ExecutionException, InterruptedException {
+        String categoryId = recipeRepository.findHeaderById(recipeId).map(Recipe::getCategoryId).orElse(null);
         recipeRepository.updatePublishedStatus(recipeId, published);
+        eventPublisher.publishEvent(ContentChangedEvent.recipe(recipeId, categoryId));
     }
 
     /**
      * Note une recette
      */
     public void rateRecipe(String recipeId, double rating) throws ExecutionException, InterruptedException {
-        Optional<Recipe> recipeOpt = recipeRepository.findById(recipeId);
+        Optional<Recipe> recipeOpt = recipeRepository.findHeaderById(recipeId);
         if (recipeOpt.isPresent()) {
             Recipe recipe = recipeOpt.get();
             
@@ -194,6 +401,7 @@ public class RecipeService {
             
             // Mettre à jour dans Firestore
             recipeRepository.updateRating(recipeId, newRating, newCount);
+            eventPublisher.publishEvent(ContentChangedEvent.recipe(recipeId, recipe.getCategoryId()));
         }
     }
 
@@ -213,20 +421,10 @@ public class RecipeService {
 
     /**
      * Vérifie si un utilisateur peut modifier une recette
+     * L'auteur et les administrateurs actifs le peuvent ; la décision est résolue en mémoire
      */
     public boolean canUserEditRecipe(String userId, String recipeId) throws ExecutionException, InterruptedException {
-        Optional<Recipe> recipe = recipeRepository.findById(recipeId);
-        if (recipe.isPresent()) {
-            // L'auteur peut toujours modifier sa recette
-            if (recipe.get().getAuthorId().equals(userId)) {
-                return true;
-            }
-            
-            // Vérifier si l'utilisateur est admin
-            Optional<com.example.recipeapp.model.User> user = userService.findById(userId);
-            return user.isPresent() && user.get().isAdmin();
-        }
-        return false;
+        return authorizationCache.canEditRecipe(userId, recipeId);
     }
 
     /**
@@ -0,0 +1,88 @@
+package com.example.recipeapp.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limiteur de débit par clé (compte, adresse IP...) à fenêtre glissante.
+ * Le nombre d'événements de la fenêtre précédente est pondéré par la part de celle-ci
+ * encore couverte, ce qui évite de stocker chaque événement.
+ * Les fenêtres expirées sont retirées par evictExpired(), à appeler périodiquement hors des requêtes ;
+ * entre deux purges, le nombre de clés est plafonné et une nouvelle clé est refusée au-delà.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final int MAX_KEYS = 100_000;
+
+    private final int limit;
+    private final long windowMillis;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Enregistre un événement pour la clé, ou retourne false si la limite est atteinte
+     */
+    public boolean tryAcquire(String key) {
+        long now = System.currentTimeMillis();
+        Window window = windows.get(key);
+        if (window == null) {
+            // Table pleine (balayage de noms ou d'adresses) : refus jusqu'à la prochaine purge
+            if (windows.size() >= MAX_KEYS) {
+                return false;
+            }
+            window = windows.computeIfAbsent(key, k -> new Window(now));
+        }
+        return window.tryAcquire(now, limit, windowMillis);
+    }
+
+    /**
+     * Retire les clés sans événement depuis deux fenêtres (elles repartiraient de zéro)
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        windows.values().removeIf(window -> window.isExpired(now, windowMillis));
+    }
+
+    public long getWindowSeconds() {
+        return windowMillis / 1000;
+    }
+
+    private static final class Window {
+        private long start;
+        private int previousCount;
+        private int currentCount;
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        synchronized boolean tryAcquire(long now, int limit, long windowMillis) {
+            long elapsed = now - start;
+            if (elapsed >= 2 * windowMillis) {
+                previousCount = 0;
+                currentCount = 0;
+                start = now;
+                elapsed = 0;
+            } else if (elapsed >= windowMillis) {
+                previousCount = currentCount;
+                currentCount = 0;
+                start += windowMillis;
+                elapsed -= windowMillis;
+            }
+
+            double previousWeight = (windowMillis - elapsed) / (double) windowMillis;
+            if (previousCount * previousWeight + currentCount >= limit) {
+                return false;
+            }
+            currentCount++;
+            return true;
+        }
+
+        synchronized boolean isExpired(long now, long windowMillis) {
+            return now - start >= 2 * windowMillis;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.recipeapp.service;
+
+/**
+ * Levée lorsqu'un jeton de synchronisation est plus ancien que la conservation des suppressions :
+ * le client doit repartir d'une synchronisation complète
+ */
+public class SyncTokenExpiredException extends RuntimeException {
+
+    public SyncTokenExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service de jetons d'authentification sans état.
+ * Un jeton contient l'ID de l'utilisateur, ses rôles et sa date d'expiration, signés par HMAC-SHA256 :
+ * sa vérification ne demande ni BCrypt ni lecture Firestore, seulement une liste de révocation en mémoire.
+ * Format : base64url(userId:roles:émission (ms):expiration (s):jti).base64url(signature)
+ */
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Secret en base64 ; s'il est vide, un secret aléatoire est généré (jetons invalidés au redémarrage)
+    @Value("${recipe-app.tokens.secret:}")
+    private String secret;
+
+    @Value("${recipe-app.tokens.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macs;
+
+    // jti -> expiration (secondes) des jetons révoqués individuellement
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // userId -> date (ms) avant laquelle tous les jetons émis sont révoqués
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = Base64.getDecoder().decode(secret);
+        }
+        key = new SecretKeySpec(secretBytes, ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC indisponible", e);
+            }
+        });
+    }
+
+    /**
+     * Émet un jeton pour un utilisateur authentifié
+     */
+    public IssuedToken issue(User user) {
+        Instant now = Instant.now();
+        long issuedAt = now.toEpochMilli();
+        long expiresAt = now.getEpochSecond() + ttlMinutes * 60;
+        String roles = user.getRoles() == null ? "" : String.join(",", user.getRoles());
+        String payload = user.getId() + ":" + roles + ":" + issuedAt + ":" + expiresAt + ":" + UUID.randomUUID();
+
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return new IssuedToken(encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload)), expiresAt);
+    }
+
+    /**
+     * Vérifie un jeton (signature, expiration, révocation), sans aucune entrée/sortie
+     */
+    public Optional<TokenClaims> verify(String token) {
+        int separator = token == null ? -1 : token.indexOf('.');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            String encodedPayload = token.substring(0, separator);
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return Optional.empty();
+            }
+
+            String[] parts = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 5) {
+                return Optional.empty();
+            }
+            TokenClaims claims = new TokenClaims(parts[0],
+                parts[1].isEmpty() ? List.of() : Arrays.asList(parts[1].split(",")),
+                Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts[4]);
+
+            if (claims.getExpiresAt() <= Instant.now().getEpochSecond() || isRevoked(claims)) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Révoque un jeton précis (déconnexion)
+     */
+    public void revoke(TokenClaims claims) {
+        revokedTokens.put(claims.getTokenId(), claims.getExpiresAt());
+    }
+
+    /**
+     * Révoque tous les jetons déjà émis pour un utilisateur (mot de passe changé, compte désactivé, rôles modifiés)
+     */
+    public void revokeAll(String userId) {
+        revokedUsers.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * Retire les révocations devenues inutiles (jetons concernés expirés), hors des requêtes
+     */
+    @Scheduled(fixedDelayString = "${recipe-app.cache-eviction-interval-ms:60000}")
+    public void evictExpiredRevocations() {
+        long nowSeconds = Instant.now().getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= nowSeconds);
+        // Au-delà de la durée de vie, tous les jetons émis avant la révocation ont expiré
+        long now = System.currentTimeMillis();
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + ttlMinutes * 60_000 <= now);
+    }
+
+    private boolean isRevoked(TokenClaims claims) {
+        if (revokedTokens.containsKey(claims.getTokenId())) {
+            return true;
+        }
+        Long revokedBefore = revokedUsers.get(claims.getUserId());
+        // Même milliseconde que la révocation : le jeton a pu être émis juste avant, il est refusé
+        return revokedBefore != null && claims.getIssuedAt() <= revokedBefore;
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Jeton émis et sa date d'expiration (secondes epoch)
+     */
+    public static class IssuedToken {
+        private final String token;
+        private final long expiresAt;
+
+        public IssuedToken(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() { return token; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    /**
+     * Contenu vérifié d'un jeton
+     */
+    public static class TokenClaims {
+        private final String userId;
+        private final List<String> roles;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final String tokenId;
+
+        public TokenClaims(String userId, List<String> roles, long issuedAt, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.roles = roles;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        public String getUserId() { return userId; }
+        public List<String> getRoles() { return roles; }
+        public long getIssuedAt() { return issuedAt; }
+        public long getExpiresAt() { return expiresAt; }
+        public String getTokenId() { return tokenId; }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.recipeapp.service;
+
+/**
+ * Levée lorsqu'un compte ou une adresse IP dépasse le nombre de tentatives autorisé
+ */
+public class TooManyAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Backfill des réservations usernames/{username} et emails/{email} pour les utilisateurs existants.
+ * Activé par recipe-app.migrations.user-index=true ; peut être relancé sans risque.
+ */
+@Service
+@ConditionalOnProperty(name = "recipe-app.migrations.user-index", havingValue = "true")
+public class UserIndexBackfillJob implements CommandLineRunner {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${recipe-app.migrations.partitions:8}")
+    private int partitions;
+
+    @Override
+    public void run(String... args) throws Exception {
+        System.out.println("🔧 Création des réservations de noms d'utilisateur et d'emails...");
+        long created = userRepository.backfillLoginIndex(partitions,
+            progress -> System.out.println("   " + progress));
+        System.out.println("✅ " + created + " réservation(s) créée(s)");
+    }
+}
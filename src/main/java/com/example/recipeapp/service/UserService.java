@@ -1,14 +1,20 @@
 package com.example.recipeapp.service;
 
 import com.example.recipeapp.model.User;
+import com.example.recipeapp.repository.FavoriteRepository;
 import com.example.recipeapp.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.cloud.Timestamp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -18,28 +24,44 @@ import java.util.concurrent.ExecutionException;
 @Service
 public class UserService {
 
+    /**
+     * Champs modifiables par une mise à jour partielle.
+     * Les rôles, le statut et les favoris ont leurs propres opérations.
+     */
+    private static final List<String> PATCHABLE_FIELDS = List.of(
+        "username", "email", "password", "firstName", "lastName", "bio", "profileImageUrl"
+    );
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
 
     /**
      * Crée un nouvel utilisateur
      */
     public User createUser(User user) throws ExecutionException, InterruptedException {
-        // Vérifier que l'email n'existe pas déjà
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Un utilisateur avec cet email existe déjà");
-        }
-
-        // Vérifier que le nom d'utilisateur n'existe pas déjà
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Ce nom d'utilisateur est déjà pris");
-        }
+        // L'unicité de l'email et du nom d'utilisateur est vérifiée par le repository,
+        // dans la transaction qui crée l'utilisateur
 
         // Encoder le mot de passe
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
 
         // Définir les rôles par défaut
         if (user.getRoles() == null || user.getRoles().isEmpty()) {
@@ -50,47 +72,76 @@ public class UserService {
         user.setEnabled(true);
 
         // Initialiser les dates
-        Date now = new Date();
+        Timestamp now = Timestamp.now();
         if (user.getCreatedAt() == null) {
             user.setCreatedAt(now);
         }
         user.setUpdatedAt(now);
 
-        return userRepository.save(user);
+        User createdUser = userRepository.create(user);
+        // Un refus mis en cache pour cet ID (utilisateur alors absent) ne doit pas survivre à la création
+        eventPublisher.publishEvent(AuthorizationChangedEvent.user(createdUser.getId()));
+        eventPublisher.publishEvent(ContentChangedEvent.user(createdUser.getId()));
+        return createdUser;
     }
 
     /**
      * Met à jour un utilisateur existant
      */
     public User updateUser(User user) throws ExecutionException, InterruptedException {
-        Optional<User> existingUser = userRepository.findById(user.getId());
-        if (existingUser.isEmpty()) {
-            throw new RuntimeException("Utilisateur non trouvé");
+        // Si le mot de passe est fourni, l'encoder (sinon le repository conserve l'ancien)
+        if (user.getPassword() != null && !user.getPassword().isEmpty()) {
+            user.setPassword(passwordHashingService.encode(user.getPassword()));
         }
 
-        User existing = existingUser.get();
+        // Les conflits d'email et de nom d'utilisateur sont vérifiés dans la transaction
+        User updatedUser = userRepository.update(user);
+
+        // Le remplacement complet peut changer les rôles, le statut ou le mot de passe portés par les jetons
+        tokenService.revokeAll(user.getId());
+        eventPublisher.publishEvent(AuthorizationChangedEvent.user(user.getId()));
+        eventPublisher.publishEvent(ContentChangedEvent.user(user.getId()));
+        return updatedUser;
+    }
+
+    /**
+     * Met à jour partiellement un utilisateur, sans relire le document
+     * (sauf changement de nom d'utilisateur ou d'email, qui déplace les réservations).
+     * Si une version est attendue, l'écriture échoue (ConcurrentModificationException)
+     * lorsque l'utilisateur a été modifié entre-temps.
+     */
+    public Optional<String> patchUser(String id, Map<String, Object> changes, String expectedVersion) throws ExecutionException, InterruptedException {
+        Map<String, Object> fields = new HashMap<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(change.getKey())) {
+                throw new RuntimeException("Champ non modifiable : " + change.getKey());
+            }
 
-        // Vérifier les conflits d'email (si changé)
-        if (!existing.getEmail().equals(user.getEmail()) && 
-            userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Un utilisateur avec cet email existe déjà");
+            String value = objectMapper.convertValue(change.getValue(), new TypeReference<String>() {});
+            if (!validator.validateValue(User.class, change.getKey(), value).isEmpty()) {
+                throw new RuntimeException("Valeur invalide pour le champ " + change.getKey());
+            }
+            fields.put(change.getKey(), value);
         }
 
-        // Vérifier les conflits de nom d'utilisateur (si changé)
-        if (!existing.getUsername().equals(user.getUsername()) && 
-            userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Ce nom d'utilisateur est déjà pris");
+        if (fields.isEmpty()) {
+            throw new RuntimeException("Aucun champ à modifier");
         }
 
-        // Si le mot de passe est fourni, l'encoder
-        if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
-        } else {
-            // Conserver l'ancien mot de passe
-            user.setPassword(existing.getPassword());
+        // Les contrôles d'unicité du nom d'utilisateur et de l'email sont faits par le repository,
+        // uniquement si ces champs changent
+
+        // Encoder le mot de passe s'il est fourni
+        if (fields.containsKey("password")) {
+            fields.put("password", passwordHashingService.encode((String) fields.get("password")));
         }
 
-        return userRepository.save(user);
+        Optional<String> version = userRepository.patch(id, fields, expectedVersion);
+        if (version.isPresent() && fields.containsKey("password")) {
+            tokenService.revokeAll(id);
+        }
+        eventPublisher.publishEvent(ContentChangedEvent.user(id));
+        return version;
     }
 
     /**
@@ -100,6 +151,13 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    /**
+     * Retourne la dernière version connue d'un utilisateur, sans lecture Firestore
+     */
+    public Optional<String> findCachedVersion(String id) {
+        return userRepository.findCachedVersion(id);
+    }
+
     /**
      * Trouve un utilisateur par son email
      */
@@ -121,6 +179,13 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Utilisateurs actifs, lus au fil de l'itération
+     */
+    public Iterable<User> streamActive() {
+        return userRepository.streamActive();
+    }
+
     /**
      * Récupère tous les utilisateurs actifs
      */
@@ -132,7 +197,26 @@ public class UserService {
      * Supprime un utilisateur
      */
     public boolean deleteUser(String id) throws ExecutionException, InterruptedException {
-        return userRepository.deleteById(id);
+        tokenService.revokeAll(id);
+        boolean deleted = userRepository.deleteById(id);
+        eventPublisher.publishEvent(AuthorizationChangedEvent.user(id));
+        eventPublisher.publishEvent(ContentChangedEvent.user(id));
+        return deleted;
+    }
+
+    /**
+     * Vérifie si un nom d'utilisateur est libre
+     * Les noms certainement inexistants sont résolus en mémoire, sans lecture Firestore
+     */
+    public boolean isUsernameAvailable(String username) throws ExecutionException, InterruptedException {
+        return !userRepository.existsByUsername(username);
+    }
+
+    /**
+     * Vérifie si un email est libre
+     */
+    public boolean isEmailAvailable(String email) throws ExecutionException, InterruptedException {
+        return !userRepository.existsByEmail(email);
     }
 
     /**
@@ -140,33 +224,36 @@ public class UserService {
      */
     public void updateUserStatus(String userId, boolean enabled) throws ExecutionException, InterruptedException {
         userRepository.updateUserStatus(userId, enabled);
+        if (!enabled) {
+            tokenService.revokeAll(userId);
+        }
+        eventPublisher.publishEvent(AuthorizationChangedEvent.user(userId));
+        eventPublisher.publishEvent(ContentChangedEvent.user(userId));
     }
 
     /**
      * Vérifie si les credentials de connexion sont valides
      */
     public boolean validateCredentials(String usernameOrEmail, String password) throws ExecutionException, InterruptedException {
-        Optional<User> user = findByUsername(usernameOrEmail);
-        if (user.isEmpty()) {
-            user = findByEmail(usernameOrEmail);
-        }
-
-        if (user.isPresent() && user.get().isEnabled()) {
-            return passwordEncoder.matches(password, user.get().getPassword());
-        }
-
-        return false;
+        return authenticate(usernameOrEmail, password).isPresent();
     }
 
     /**
      * Authentifie un utilisateur et retourne ses informations
      */
     public Optional<User> authenticate(String usernameOrEmail, String password) throws ExecutionException, InterruptedException {
-        if (validateCredentials(usernameOrEmail, password)) {
-            Optional<User> user = findByUsername(usernameOrEmail);
-            if (user.isEmpty()) {
-                user = findByEmail(usernameOrEmail);
-            }
+        return authenticate(usernameOrEmail, password, null);
+    }
+
+    /**
+     * Authentifie un utilisateur en limitant les tentatives par compte et par adresse IP
+     * Une seule recherche par identifiant de connexion, le calcul BCrypt se fait sur le pool dédié
+     */
+    public Optional<User> authenticate(String usernameOrEmail, String password, String clientIp) throws ExecutionException, InterruptedException {
+        passwordHashingService.checkAttempt(usernameOrEmail, clientIp);
+
+        Optional<User> user = userRepository.findByLogin(usernameOrEmail);
+        if (user.isPresent() && user.get().isEnabled() && passwordHashingService.matches(password, user.get().getPassword())) {
             return user;
         }
         return Optional.empty();
@@ -176,6 +263,8 @@ public class UserService {
      * Change le mot de passe d'un utilisateur
      */
     public void changePassword(String userId, String oldPassword, String newPassword) throws ExecutionException, InterruptedException {
+        passwordHashingService.checkAttempt(userId, null);
+
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isEmpty()) {
             throw new RuntimeException("Utilisateur non trouvé");
@@ -184,28 +273,21 @@ public class UserService {
         User user = userOpt.get();
 
         // Vérifier l'ancien mot de passe
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new RuntimeException("Ancien mot de passe incorrect");
         }
 
-        // Encoder et sauvegarder le nouveau mot de passe
-        user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        // Encoder et enregistrer uniquement le nouveau mot de passe
+        userRepository.patch(userId, Map.of("password", passwordHashingService.encode(newPassword)), null);
+        tokenService.revokeAll(userId);
     }
 
     /**
      * Ajoute une recette aux favoris d'un utilisateur
      */
     public void addFavoriteRecipe(String userId, String recipeId) throws ExecutionException, InterruptedException {
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (user.getFavoriteRecipeIds() == null) {
-                user.setFavoriteRecipeIds(Arrays.asList(recipeId));
-            } else if (!user.getFavoriteRecipeIds().contains(recipeId)) {
-                user.getFavoriteRecipeIds().add(recipeId);
-            }
-            userRepository.save(user);
+        if (favoriteRepository.addFavorite(userId, recipeId)) {
+            eventPublisher.publishEvent(ContentChangedEvent.favorite(userId, recipeId));
         }
     }
 
@@ -213,14 +295,9 @@ public class UserService {
      * Retire une recette des favoris d'un utilisateur
      */
     public void removeFavoriteRecipe(String userId, String recipeId) throws ExecutionException, InterruptedException {
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            if (user.getFavoriteRecipeIds() != null) {
-                user.getFavoriteRecipeIds().remove(recipeId);
-                userRepository.save(user);
-            }
-        }
+        // Même un favori ancien, jamais compté, est retiré de la liste de l'utilisateur
+        favoriteRepository.removeFavorite(userId, recipeId);
+        eventPublisher.publishEvent(ContentChangedEvent.favorite(userId, recipeId));
     }
 
     /**
@@ -0,0 +1,39 @@
+package com.example.recipeapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcceptEncodingTest {
+
+	@Test
+	void listedCodingIsAccepted() {
+		assertTrue(AcceptEncoding.accepts("gzip", "gzip"));
+		assertTrue(AcceptEncoding.accepts("br, GZIP;q=0.5", "gzip"));
+		assertTrue(AcceptEncoding.accepts("deflate ; Q=0.1 , gzip", "deflate"));
+	}
+
+	@Test
+	void zeroWeightIsAnExplicitRefusal() {
+		assertFalse(AcceptEncoding.accepts("gzip;q=0", "gzip"));
+		assertFalse(AcceptEncoding.accepts("gzip;q=0.0, *", "gzip"));
+		assertFalse(AcceptEncoding.accepts("gzip;q=abc", "gzip"));
+	}
+
+	@Test
+	void wildcardCoversUnlistedCodings() {
+		assertTrue(AcceptEncoding.accepts("br, *", "gzip"));
+		assertFalse(AcceptEncoding.accepts("br, *;q=0", "gzip"));
+		assertTrue(AcceptEncoding.accepts("*;q=0, gzip", "gzip"));
+	}
+
+	@Test
+	void missingOrUnrelatedHeaderRefuses() {
+		assertFalse(AcceptEncoding.accepts(null, "gzip"));
+		assertFalse(AcceptEncoding.accepts("", "gzip"));
+		assertFalse(AcceptEncoding.accepts("identity", "gzip"));
+		assertFalse(AcceptEncoding.accepts("gzip2", "gzip"));
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.model.Recipe;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiFormatsTest {
+
+	private final ApiFormats formats = new ApiFormats();
+
+	@Test
+	void jsonByDefault() {
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate(null));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate(" "));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("*/*"));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("text/html, application/xml"));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("application/;;invalide"));
+	}
+
+	@Test
+	void binaryFormatsWhenNamed() {
+		assertEquals(ApiFormats.Format.SMILE, formats.negotiate("application/x-jackson-smile"));
+		assertEquals(ApiFormats.Format.CBOR, formats.negotiate("application/cbor"));
+		assertEquals(ApiFormats.Format.CBOR_STRINGREF, formats.negotiate("application/cbor; stringref=true"));
+		assertEquals(ApiFormats.Format.CBOR, formats.negotiate("application/cbor; stringref=false"));
+	}
+
+	@Test
+	void binaryFormatMustOutweighJsonAndWildcards() {
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("application/json, application/cbor"));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("application/cbor;q=0.5, */*"));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("application/x-jackson-smile;q=0.8, application/*;q=0.8"));
+		assertEquals(ApiFormats.Format.CBOR, formats.negotiate("application/cbor, application/json;q=0.9"));
+		assertEquals(ApiFormats.Format.SMILE, formats.negotiate("application/x-jackson-smile, */*;q=0.1"));
+	}
+
+	@Test
+	void highestQualityBinaryFormatWins() {
+		assertEquals(ApiFormats.Format.SMILE,
+				formats.negotiate("application/cbor;q=0.5, application/x-jackson-smile;q=0.9"));
+		assertEquals(ApiFormats.Format.CBOR_STRINGREF,
+				formats.negotiate("application/x-jackson-smile;q=0.5, application/cbor;stringref=true"));
+		assertEquals(ApiFormats.Format.JSON, formats.negotiate("application/cbor;q=0"));
+	}
+
+	@Test
+	void binaryFormatsShrinkARecipeList() throws Exception {
+		ReflectionTestUtils.setField(formats, "objectMapper", new Jackson2ObjectMapperBuilder().build());
+		ReflectionTestUtils.setField(formats, "mapperBuilder", new Jackson2ObjectMapperBuilder());
+		ReflectionTestUtils.invokeMethod(formats, "init");
+		List<Recipe> recipes = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			recipes.add(recipe(i));
+		}
+
+		Map<ApiFormats.Format, Integer> sizes = new EnumMap<>(ApiFormats.Format.class);
+		for (ApiFormats.Format format : ApiFormats.Format.values()) {
+			sizes.put(format, formats.mapper(format).writeValueAsBytes(recipes).length);
+		}
+		System.out.println("📦 Liste de 50 recettes (octets) : " + sizes);
+
+		int json = sizes.get(ApiFormats.Format.JSON);
+		assertTrue(sizes.get(ApiFormats.Format.CBOR) < json, sizes.toString());
+		assertTrue(sizes.get(ApiFormats.Format.SMILE) < sizes.get(ApiFormats.Format.CBOR), sizes.toString());
+		assertTrue(sizes.get(ApiFormats.Format.CBOR_STRINGREF) < sizes.get(ApiFormats.Format.CBOR), sizes.toString());
+	}
+
+	private static Recipe recipe(int i) {
+		Recipe recipe = new Recipe();
+		recipe.setId("recette-" + i);
+		recipe.setTitle("Recette numéro " + i);
+		recipe.setCategoryId("categorie-" + (i % 4));
+		recipe.setAuthorId("auteur-" + (i % 10));
+		recipe.setTags(List.of("dessert", "tag-" + (i % 5)));
+		recipe.setServings(4);
+		recipe.setPrepTimeMinutes(15);
+		recipe.setCookTimeMinutes(30);
+		recipe.setDifficulty(Recipe.DifficultyLevel.values()[i % Recipe.DifficultyLevel.values().length]);
+		recipe.setIngredients(List.of(new Recipe.Ingredient("farine", 250.0, "g"),
+				new Recipe.Ingredient("sucre", 100.0, "g"), new Recipe.Ingredient("lait", 20.0, "cl")));
+		recipe.setInstructions(List.of(new Recipe.Instruction(1, "Mélanger."), new Recipe.Instruction(2, "Cuire.")));
+		return recipe;
+	}
+
+}
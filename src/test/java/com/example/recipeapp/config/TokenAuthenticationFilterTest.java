@@ -0,0 +1,94 @@
+package com.example.recipeapp.config;
+
+import com.example.recipeapp.model.User;
+import com.example.recipeapp.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenAuthenticationFilterTest {
+
+	private final TokenService tokenService = new TokenService();
+	private final TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService);
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(tokenService, "ttlMinutes", 60L);
+		ReflectionTestUtils.invokeMethod(tokenService, "init");
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void validBearerTokenAuthenticatesTheUser() throws Exception {
+		TokenService.IssuedToken issued = tokenService.issue(user("u1", "USER", "ADMIN"));
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request("Bearer " + issued.getToken()), new MockHttpServletResponse(), chain);
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		assertEquals("u1", authentication.getName());
+		assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"),
+				authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+		assertInstanceOf(TokenService.TokenClaims.class, authentication.getDetails());
+		assertNotNull(chain.getRequest());
+	}
+
+	@Test
+	void revokedTokenLeavesTheRequestAnonymous() throws Exception {
+		TokenService.IssuedToken issued = tokenService.issue(user("u1", "USER"));
+		tokenService.revoke(tokenService.verify(issued.getToken()).orElseThrow());
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request("Bearer " + issued.getToken()), new MockHttpServletResponse(), chain);
+
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+		assertNotNull(chain.getRequest());
+	}
+
+	@Test
+	void missingOrForeignHeadersLeaveTheRequestAnonymous() throws Exception {
+		String token = tokenService.issue(user("u1", "USER")).getToken();
+		for (String header : new String[] {null, "Basic dTE6c2VjcmV0", token, "Bearer invalide"}) {
+			MockFilterChain chain = new MockFilterChain();
+
+			filter.doFilter(request(header), new MockHttpServletResponse(), chain);
+
+			assertNull(SecurityContextHolder.getContext().getAuthentication(), String.valueOf(header));
+			assertNotNull(chain.getRequest());
+		}
+	}
+
+	private static MockHttpServletRequest request(String authorization) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes");
+		if (authorization != null) {
+			request.addHeader("Authorization", authorization);
+		}
+		return request;
+	}
+
+	private static User user(String id, String... roles) {
+		User user = new User();
+		user.setId(id);
+		user.setRoles(List.of(roles));
+		return user;
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.example.recipeapp.controller.api;
+
+import com.example.recipeapp.model.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionDictionariesTest {
+
+	private static final String[] INGREDIENTS = {"farine", "sucre", "beurre", "oeufs", "lait", "sel", "levure",
+			"chocolat noir", "crème fraîche", "pommes", "poivre", "huile d'olive", "oignon", "ail", "tomates"};
+	private static final String[] UNITS = {"g", "kg", "ml", "cl", "pièce", "cuillère à soupe", "pincée"};
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void dictionaryBeatsGzipOnSingleRecipeResponses() throws Exception {
+		CompressionDictionaries dictionaries = dictionaries();
+
+		dictionaries.train(responses(400, new Random(1)));
+
+		double gzip = ratio("gzip");
+		double dictionary = ratio("dictionary");
+		System.out.printf("🗜️ Réponses d'une recette : ratio gzip %.2f, dictionnaire %.2f%n", gzip, dictionary);
+		assertTrue(dictionary > gzip * 1.5, "dictionnaire " + dictionary + " contre gzip " + gzip);
+	}
+
+	@Test
+	void compressedBodyInflatesWithTheDictionary() throws Exception {
+		CompressionDictionaries dictionaries = dictionaries();
+		dictionaries.train(responses(100, new Random(2)));
+		CompressionDictionaries.Dictionary dictionary = dictionaries.current();
+		byte[] body = responses(1, new Random(3)).get(0);
+
+		Inflater inflater = new Inflater();
+		inflater.setInput(dictionaries.compress(dictionary, body));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		while (!inflater.finished()) {
+			int length = inflater.inflate(buffer);
+			if (length == 0 && inflater.needsDictionary()) {
+				inflater.setDictionary(dictionary.content());
+			}
+			out.write(buffer, 0, length);
+		}
+		inflater.end();
+
+		assertArrayEquals(body, out.toByteArray());
+	}
+
+	@Test
+	void previousDictionaryStaysAvailable() throws Exception {
+		CompressionDictionaries dictionaries = dictionaries();
+		assertNull(dictionaries.current());
+
+		dictionaries.train(responses(100, new Random(4)));
+		CompressionDictionaries.Dictionary first = dictionaries.current();
+		dictionaries.train(responses(100, new Random(4)));
+		assertSame(first, dictionaries.current());
+
+		dictionaries.train(responses(100, new Random(5)));
+		assertNotNull(dictionaries.find(dictionaries.current().id()));
+		assertSame(first, dictionaries.find(first.id()));
+		assertNull(dictionaries.find("inconnu"));
+	}
+
+	private CompressionDictionaries dictionaries() {
+		CompressionDictionaries dictionaries = new CompressionDictionaries();
+		ReflectionTestUtils.setField(dictionaries, "meterRegistry", registry);
+		ReflectionTestUtils.setField(dictionaries, "maxBytes", 32768);
+		ReflectionTestUtils.invokeMethod(dictionaries, "init");
+		return dictionaries;
+	}
+
+	private double ratio(String codec) {
+		return registry.get("compression.ratio").tag("codec", codec).gauge().value();
+	}
+
+	private static List<byte[]> responses(int count, Random random) throws Exception {
+		ObjectMapper mapper = new Jackson2ObjectMapperBuilder().build();
+		List<byte[]> responses = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			responses.add(mapper.writeValueAsBytes(recipe(random)));
+		}
+		return responses;
+	}
+
+	private static Recipe recipe(Random random) {
+		Recipe recipe = new Recipe();
+		recipe.setId(Long.toHexString(random.nextLong()));
+		recipe.setTitle("Recette " + random.nextInt(10_000));
+		recipe.setDescription("Une recette maison, simple et rapide à préparer.");
+		recipe.setCategoryId("categorie-" + random.nextInt(12));
+		recipe.setAuthorId("auteur-" + random.nextInt(150));
+		recipe.setTags(List.of("tag-" + random.nextInt(30), "tag-" + random.nextInt(30)));
+		recipe.setServings(2 + random.nextInt(6));
+		recipe.setPrepTimeMinutes(5 * (1 + random.nextInt(12)));
+		recipe.setCookTimeMinutes(5 * (1 + random.nextInt(12)));
+		recipe.setDifficulty(Recipe.DifficultyLevel.values()[random.nextInt(Recipe.DifficultyLevel.values().length)]);
+		List<Recipe.Ingredient> ingredients = new ArrayList<>();
+		for (int i = 0, n = 3 + random.nextInt(6); i < n; i++) {
+			ingredients.add(new Recipe.Ingredient(INGREDIENTS[random.nextInt(INGREDIENTS.length)],
+					(double) (1 + random.nextInt(500)), UNITS[random.nextInt(UNITS.length)]));
+		}
+		recipe.setIngredients(ingredients);
+		List<Recipe.Instruction> instructions = new ArrayList<>();
+		for (int i = 1, n = 2 + random.nextInt(5); i <= n; i++) {
+			instructions.add(new Recipe.Instruction(i, "Étape " + i + " : mélanger puis laisser reposer."));
+		}
+		recipe.setInstructions(instructions);
+		Timestamp created = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L + random.nextInt(1_000_000), 0);
+		recipe.setCreatedAt(created);
+		recipe.setUpdatedAt(created);
+		return recipe;
+	}
+
+}
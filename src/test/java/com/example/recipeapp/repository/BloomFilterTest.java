@@ -0,0 +1,71 @@
+package com.example.recipeapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+	@Test
+	void emptyFilterContainsNothing() {
+		BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+		assertFalse(filter.mightContain("recipe-1"));
+		assertFalse(filter.mightContain(""));
+	}
+
+	@Test
+	void addedKeysAreNeverReportedAbsent() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("recipe-" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filter.mightContain("recipe-" + i));
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("user-" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 3_000, "faux positifs : " + falsePositives);
+	}
+
+	@Test
+	void concurrentPutsAreAllVisible() throws InterruptedException {
+		BloomFilter filter = new BloomFilter(40_000, 0.01);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int offset = t * 10_000;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					filter.put("key-" + (offset + i));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int i = 0; i < 40_000; i++) {
+			assertTrue(filter.mightContain("key-" + i));
+		}
+	}
+
+}
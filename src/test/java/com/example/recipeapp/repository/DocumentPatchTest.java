@@ -0,0 +1,151 @@
+package com.example.recipeapp.repository;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.grpc.GrpcStatusCode;
+import com.google.api.gax.rpc.ApiExceptionFactory;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentPatchTest {
+
+	private static final Timestamp VERSION = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 123_456_000);
+	private static final Timestamp COMMIT = Timestamp.ofTimeSecondsAndNanos(1_700_000_100L, 0);
+
+	private final DocumentReference docRef = mock(DocumentReference.class);
+	private final WriteBatch batch = mock(WriteBatch.class);
+
+	@BeforeEach
+	void setUp() {
+		Firestore firestore = mock(Firestore.class);
+		when(docRef.getFirestore()).thenReturn(firestore);
+		when(firestore.batch()).thenReturn(batch);
+	}
+
+	@Test
+	void parseVersionAcceptsBareQuotedAndWeakForms() {
+		String version = VERSION.toString();
+
+		assertEquals(VERSION, DocumentPatch.parseVersion(version));
+		assertEquals(VERSION, DocumentPatch.parseVersion("\"" + version + "\""));
+		assertEquals(VERSION, DocumentPatch.parseVersion(" W/\"" + version + "\" "));
+	}
+
+	@Test
+	void parseVersionRejectsGarbage() {
+		assertThrows(IllegalArgumentException.class, () -> DocumentPatch.parseVersion("\"pas-une-date\""));
+		assertThrows(IllegalArgumentException.class, () -> DocumentPatch.parseVersion("\""));
+	}
+
+	@Test
+	void anyVersionIsTheWildcardOnly() {
+		assertTrue(DocumentPatch.isAnyVersion("*"));
+		assertTrue(DocumentPatch.isAnyVersion(" * "));
+		assertFalse(DocumentPatch.isAnyVersion("\"*\""));
+		assertFalse(DocumentPatch.isAnyVersion(VERSION.toString()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void expectedVersionBecomesAnUpdatePrecondition() throws Exception {
+		commitSucceeds();
+
+		Optional<String> version = DocumentPatch.apply(docRef, Map.of("title", "Tarte"), "\"" + VERSION + "\"");
+
+		assertEquals(Optional.of(COMMIT.toString()), version);
+		ArgumentCaptor<Map<String, Object>> update = ArgumentCaptor.forClass(Map.class);
+		verify(batch).update(eq(docRef), update.capture(), eq(Precondition.updatedAt(VERSION)));
+		assertEquals(Map.of("title", "Tarte", "updatedAt", FieldValue.serverTimestamp()), update.getValue());
+	}
+
+	@Test
+	void wildcardOrMissingVersionOnlyRequiresTheDocument() throws Exception {
+		commitSucceeds();
+
+		DocumentPatch.apply(docRef, Map.of("title", "Tarte"), "*");
+		DocumentPatch.apply(docRef, Map.of("title", "Tarte"), null);
+
+		verify(batch, times(2)).update(eq(docRef), anyMap());
+		verify(batch, never()).update(eq(docRef), anyMap(), any(Precondition.class));
+	}
+
+	@Test
+	void additionalWritesJoinTheSameBatch() throws Exception {
+		commitSucceeds();
+		DocumentReference other = mock(DocumentReference.class);
+
+		DocumentPatch.apply(docRef, Map.of("title", "Tarte"), null, b -> b.set(other, Map.of("a", 1)));
+
+		verify(batch).set(other, Map.of("a", 1));
+	}
+
+	@Test
+	void commitFailuresMapToTheirMeaning() throws Exception {
+		commitFails(StatusCode.Code.NOT_FOUND);
+		assertEquals(Optional.empty(), DocumentPatch.apply(docRef, Map.of("title", "Tarte"), null));
+
+		commitFails(StatusCode.Code.FAILED_PRECONDITION);
+		assertThrows(ConcurrentModificationException.class,
+				() -> DocumentPatch.apply(docRef, Map.of("title", "Tarte"), VERSION.toString()));
+
+		commitFails(StatusCode.Code.ALREADY_EXISTS);
+		assertThrows(IllegalStateException.class, () -> DocumentPatch.apply(docRef, Map.of("title", "Tarte"), null));
+
+		commitFails(StatusCode.Code.UNAVAILABLE);
+		assertThrows(ExecutionException.class, () -> DocumentPatch.apply(docRef, Map.of("title", "Tarte"), null));
+	}
+
+	@Test
+	void statusCodeFollowsTheCauseChain() {
+		Exception error = new ExecutionException(new RuntimeException(apiException(StatusCode.Code.ABORTED)));
+
+		assertSame(StatusCode.Code.ABORTED, DocumentPatch.statusCode(error));
+		assertNull(DocumentPatch.statusCode(new ExecutionException(new IllegalStateException())));
+	}
+
+	private void commitSucceeds() {
+		WriteResult result = mock(WriteResult.class);
+		when(result.getUpdateTime()).thenReturn(COMMIT);
+		when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of(result)));
+	}
+
+	private void commitFails(StatusCode.Code code) {
+		when(batch.commit()).thenReturn(ApiFutures.immediateFailedFuture(apiException(code)));
+	}
+
+	private static RuntimeException apiException(StatusCode.Code code) {
+		return ApiExceptionFactory.createException(new RuntimeException(code.name()),
+				GrpcStatusCode.of(Status.Code.valueOf(code.name())), false);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.example.recipeapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeChangeLogTest {
+
+	@Test
+	void mergeKeepsJournalOrder() {
+		RecipeChangeLog.ChangePage<String> page =
+				RecipeChangeLog.merge(List.of("a", "c", "e"), List.of("b", "d"), 10, Comparator.naturalOrder());
+
+		assertEquals(List.of("a", "b", "c", "d", "e"), page.entries());
+		assertFalse(page.hasMore());
+	}
+
+	@Test
+	void truncatedMergeHasMoreEvenWhenNoQueryIsFull() {
+		RecipeChangeLog.ChangePage<String> page =
+				RecipeChangeLog.merge(List.of("a", "c", "e"), List.of("b", "d", "f"), 4, Comparator.naturalOrder());
+
+		assertEquals(List.of("a", "b", "c", "d"), page.entries());
+		assertTrue(page.hasMore());
+	}
+
+	@Test
+	void fullQueryHasMoreWithoutTruncation() {
+		RecipeChangeLog.ChangePage<String> page =
+				RecipeChangeLog.merge(List.of("a", "b", "c"), List.of(), 3, Comparator.naturalOrder());
+
+		assertEquals(List.of("a", "b", "c"), page.entries());
+		assertTrue(page.hasMore());
+	}
+
+	@Test
+	void partialQueriesWithinLimitHaveNoMore() {
+		RecipeChangeLog.ChangePage<String> page =
+				RecipeChangeLog.merge(List.of("a", "b"), List.of("c"), 4, Comparator.naturalOrder());
+
+		assertEquals(List.of("a", "b", "c"), page.entries());
+		assertFalse(page.hasMore());
+	}
+
+}
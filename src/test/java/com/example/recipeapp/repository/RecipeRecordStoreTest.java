@@ -0,0 +1,196 @@
+package com.example.recipeapp.repository;
+
+import com.example.recipeapp.model.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeRecordStoreTest {
+
+	private static final Timestamp CREATED = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 500);
+	private static final Timestamp VERSION = Timestamp.ofTimeSecondsAndNanos(1_700_000_100L, 123_456_000);
+
+	@Test
+	void putThenReadBackEveryField() {
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 4096, null);
+		Recipe recipe = recipe("r1", "Tarte", VERSION);
+		store.put(recipe);
+
+		Recipe read = view(store, "r1").toRecipe();
+
+		assertSameHeader(recipe, read);
+		assertEquals(1, store.size());
+		assertEquals(0, store.deadBytes());
+	}
+
+	@Test
+	void replacementKillsTheOldRecordAndOlderVersionsAreIgnored() {
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 4096, null);
+		store.put(recipe("r1", "Tarte", VERSION));
+		long firstLength = store.liveBytes();
+
+		store.put(recipe("r1", "Tarte aux pommes", Timestamp.ofTimeSecondsAndNanos(VERSION.getSeconds() + 1, 0)));
+		store.put(recipe("r1", "Ancienne", VERSION));
+
+		assertEquals("Tarte aux pommes", view(store, "r1").title());
+		assertEquals(1, store.size());
+		assertEquals(firstLength, store.deadBytes());
+	}
+
+	@Test
+	void removeKillsTheRecord() {
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 4096, null);
+		store.put(recipe("r1", "Tarte", VERSION));
+		long length = store.liveBytes();
+
+		assertTrue(store.remove("r1"));
+		assertFalse(store.remove("r1"));
+		assertNull(store.address("r1"));
+		assertEquals(0, store.liveBytes());
+		assertEquals(length, store.deadBytes());
+	}
+
+	@Test
+	void compactionKeepsLiveRecordsOnly() {
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 512, null);
+		for (int i = 0; i < 50; i++) {
+			store.put(recipe("r" + i, "Recette " + i, VERSION));
+		}
+		for (int i = 0; i < 50; i += 2) {
+			store.remove("r" + i);
+		}
+		store.incrementViewCount("r1");
+
+		RecipeRecordStore compacted = store.compact();
+
+		assertEquals(25, compacted.size());
+		assertEquals(store.liveBytes(), compacted.liveBytes());
+		assertEquals(0, compacted.deadBytes());
+		assertNull(compacted.address("r0"));
+		for (int i = 1; i < 50; i += 2) {
+			assertSameHeader(recipe("r" + i, "Recette " + i, VERSION), view(compacted, "r" + i).toRecipe(), i == 1 ? 8 : 7);
+		}
+	}
+
+	@Test
+	void fullDictionaryStoresStringsInline() {
+		// Une seule entrée : la catégorie prend l'ordinal, l'auteur et les tags restent en clair
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1), 4096, null);
+		Recipe recipe = recipe("r1", "Tarte", VERSION);
+		store.put(recipe);
+		store.incrementViewCount("r1");
+
+		RecipeView view = view(store, "r1");
+		assertTrue(view.categoryOrdinal() >= 0);
+		assertEquals(RecipeRecordStore.INLINE_ORDINAL, view.authorOrdinal());
+		assertEquals("auteur-1", view.authorId());
+		assertEquals(List.of("dessert", "fruits"), view.tags());
+
+		RecipeRecordStore compacted = store.compact();
+		assertSameHeader(recipe, view(compacted, "r1").toRecipe(), 8);
+		assertEquals(RecipeRecordStore.INLINE_ORDINAL, view(compacted, "r1").authorOrdinal());
+	}
+
+	@Test
+	void viewCountStartsFromAbsentValue() {
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 4096, null);
+		Recipe recipe = recipe("r1", "Tarte", VERSION);
+		recipe.setViewCount(null);
+		store.put(recipe);
+
+		store.incrementViewCount("r1");
+		store.incrementViewCount("inconnue");
+
+		assertEquals(1, view(store, "r1").viewCount());
+	}
+
+	@Test
+	void recordIsSmallerThanTheHeaderJson() throws Exception {
+		// Catalogue réaliste : peu de catégories et d'auteurs, tags pris dans un petit vocabulaire
+		ObjectMapper mapper = new Jackson2ObjectMapperBuilder().build();
+		RecipeRecordStore store = new RecipeRecordStore(dictionary(1000), 1 << 16, null);
+		int count = 2000;
+		long jsonBytes = 0;
+		for (int i = 0; i < count; i++) {
+			Recipe recipe = recipe("recette-" + i, "Recette numéro " + i, VERSION);
+			recipe.setCategoryId("categorie-" + (i % 12));
+			recipe.setAuthorId("auteur-" + (i % 150));
+			recipe.setTags(List.of("tag-" + (i % 30), "tag-" + (i % 7)));
+			store.put(recipe);
+			jsonBytes += mapper.writeValueAsBytes(recipe).length;
+		}
+
+		double perRecord = (double) store.liveBytes() / count;
+		double perJson = (double) jsonBytes / count;
+		System.out.printf("📏 Catalogue : %.0f octets par recette hors tas, %.0f en JSON (en-tête seul)%n", perRecord, perJson);
+		assertTrue(perRecord < perJson / 2, perRecord + " octets contre " + perJson);
+	}
+
+	private static StringDictionary dictionary(int maxEntries) {
+		StringDictionary dictionary = new StringDictionary();
+		ReflectionTestUtils.setField(dictionary, "maxEntries", maxEntries);
+		return dictionary;
+	}
+
+	private static RecipeView view(RecipeRecordStore store, String id) {
+		return new RecipeView(store).moveTo(store.address(id));
+	}
+
+	private static Recipe recipe(String id, String title, Timestamp version) {
+		Recipe recipe = new Recipe();
+		recipe.setId(id);
+		recipe.setTitle(title);
+		recipe.setDescription("Une recette de test, accentuée é");
+		recipe.setCategoryId("desserts");
+		recipe.setAuthorId("auteur-1");
+		recipe.setTags(List.of("dessert", "fruits"));
+		recipe.setServings(6);
+		recipe.setPrepTimeMinutes(20);
+		recipe.setCookTimeMinutes(35);
+		recipe.setDifficulty(Recipe.DifficultyLevel.MOYEN);
+		recipe.setRating(4.5);
+		recipe.setRatingCount(12);
+		recipe.setFavoriteCount(3);
+		recipe.setViewCount(7);
+		recipe.setPublished(true);
+		recipe.setCreatedAt(CREATED);
+		recipe.setUpdatedAt(version);
+		recipe.setVersion(version.toString());
+		return recipe;
+	}
+
+	private static void assertSameHeader(Recipe expected, Recipe actual) {
+		assertSameHeader(expected, actual, expected.getViewCount());
+	}
+
+	private static void assertSameHeader(Recipe expected, Recipe actual, int viewCount) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getCategoryId(), actual.getCategoryId());
+		assertEquals(expected.getAuthorId(), actual.getAuthorId());
+		assertEquals(expected.getTags(), actual.getTags());
+		assertEquals(expected.getServings(), actual.getServings());
+		assertEquals(expected.getPrepTimeMinutes(), actual.getPrepTimeMinutes());
+		assertEquals(expected.getCookTimeMinutes(), actual.getCookTimeMinutes());
+		assertEquals(expected.getDifficulty(), actual.getDifficulty());
+		assertEquals(expected.getRating(), actual.getRating());
+		assertEquals(expected.getRatingCount(), actual.getRatingCount());
+		assertEquals(expected.getFavoriteCount(), actual.getFavoriteCount());
+		assertEquals(viewCount, actual.getViewCount());
+		assertEquals(expected.isPublished(), actual.isPublished());
+		assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+		assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+		assertEquals(expected.getVersion(), actual.getVersion());
+	}
+
+}
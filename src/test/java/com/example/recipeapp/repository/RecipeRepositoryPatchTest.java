@@ -0,0 +1,127 @@
+package com.example.recipeapp.repository;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeRepositoryPatchTest {
+
+	private static final Timestamp HEADER_WRITE = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 0);
+	private static final Timestamp COMMIT = Timestamp.ofTimeSecondsAndNanos(1_700_000_100L, 0);
+
+	private final Firestore firestore = mock(Firestore.class);
+	private final DocumentReference headerRef = mock(DocumentReference.class);
+	private final DocumentReference bodyRef = mock(DocumentReference.class);
+	private final DocumentSnapshot header = mock(DocumentSnapshot.class);
+	private final DocumentSnapshot body = mock(DocumentSnapshot.class);
+	private final WriteBatch batch = mock(WriteBatch.class);
+	private final RecipeRepository repository = new RecipeRepository();
+
+	@BeforeEach
+	void setUp() {
+		CollectionReference recipes = mock(CollectionReference.class);
+		CollectionReference content = mock(CollectionReference.class);
+		when(firestore.collection("recipes")).thenReturn(recipes);
+		when(recipes.document("r1")).thenReturn(headerRef);
+		when(headerRef.collection("content")).thenReturn(content);
+		when(content.document("body")).thenReturn(bodyRef);
+		when(headerRef.getFirestore()).thenReturn(firestore);
+		when(firestore.getAll(headerRef, bodyRef)).thenReturn(ApiFutures.immediateFuture(List.of(header, body)));
+		when(firestore.batch()).thenReturn(batch);
+
+		WriteResult result = mock(WriteResult.class);
+		when(result.getUpdateTime()).thenReturn(COMMIT);
+		when(batch.commit()).thenReturn(ApiFutures.immediateFuture(List.of(result)));
+
+		when(header.exists()).thenReturn(true);
+		when(header.getUpdateTime()).thenReturn(HEADER_WRITE);
+
+		ReflectionTestUtils.setField(repository, "firestore", firestore);
+		ReflectionTestUtils.setField(repository, "versionCache", mock(VersionCache.class));
+		ReflectionTestUtils.setField(repository, "catalog", mock(OffHeapRecipeCatalog.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void bodyPatchOnUnmigratedRecipeMovesTheWholeBody() throws Exception {
+		List<Map<String, Object>> oldIngredients = List.of(Map.of("name", "farine"));
+		List<Map<String, Object>> oldInstructions = List.of(Map.of("step", 1L));
+		Map<String, Object> oldNutrition = Map.of("calories", 400L);
+		stubLegacyField("ingredients", oldIngredients);
+		stubLegacyField("instructions", oldInstructions);
+		stubLegacyField("nutritionInfo", oldNutrition);
+		when(body.exists()).thenReturn(false);
+
+		List<Map<String, Object>> newIngredients = List.of(Map.of("name", "sucre"));
+		Optional<String> version = repository.patch("r1", Map.of("ingredients", newIngredients, "title", "Tarte"), null);
+
+		assertEquals(Optional.of(COMMIT.toString()), version);
+
+		ArgumentCaptor<Map<String, Object>> bodyWrite = ArgumentCaptor.forClass(Map.class);
+		verify(batch).set(eq(bodyRef), bodyWrite.capture());
+		assertEquals(Map.of("ingredients", newIngredients, "instructions", oldInstructions, "nutritionInfo", oldNutrition),
+				bodyWrite.getValue());
+
+		ArgumentCaptor<Map<String, Object>> headerWrite = ArgumentCaptor.forClass(Map.class);
+		verify(batch).update(eq(headerRef), headerWrite.capture(), eq(Precondition.updatedAt(HEADER_WRITE)));
+		assertEquals("Tarte", headerWrite.getValue().get("title"));
+		for (String field : List.of("ingredients", "instructions", "nutritionInfo")) {
+			assertEquals(FieldValue.delete(), headerWrite.getValue().get(field));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void bodyPatchOnMigratedRecipeMergesIntoTheBody() throws Exception {
+		when(body.exists()).thenReturn(true);
+
+		List<Map<String, Object>> newIngredients = List.of(Map.of("name", "sucre"));
+		repository.patch("r1", Map.of("ingredients", newIngredients), null);
+
+		verify(batch).set(bodyRef, Map.of("ingredients", newIngredients), SetOptions.merge());
+		ArgumentCaptor<Map<String, Object>> headerWrite = ArgumentCaptor.forClass(Map.class);
+		verify(batch).update(eq(headerRef), headerWrite.capture());
+		assertEquals(List.of("updatedAt"), List.copyOf(headerWrite.getValue().keySet()));
+	}
+
+	@Test
+	void headerPatchWritesWithoutReading() throws Exception {
+		repository.patch("r1", Map.of("title", "Tarte"), null);
+
+		verify(firestore, never()).getAll(any(DocumentReference.class), any(DocumentReference.class));
+		verify(headerRef, never()).get();
+		verify(batch).update(eq(headerRef), anyMap());
+		verify(batch, never()).set(eq(bodyRef), anyMap());
+	}
+
+	private void stubLegacyField(String field, Object value) {
+		when(header.contains(field)).thenReturn(true);
+		when(header.get(field)).thenReturn(value);
+	}
+
+}
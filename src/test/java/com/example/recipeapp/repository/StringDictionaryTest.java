@@ -0,0 +1,84 @@
+package com.example.recipeapp.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void ordinalsAreStableAndCanonicalInstancesShared() {
+		StringDictionary dictionary = dictionary(10);
+		String first = new String("desserts");
+		String copy = new String("desserts");
+
+		int ordinal = dictionary.ordinal(first);
+
+		assertEquals(ordinal, dictionary.ordinal(copy));
+		assertEquals(ordinal, dictionary.find(copy));
+		assertEquals(-1, dictionary.find("inconnue"));
+		assertEquals(-1, dictionary.find(null));
+		assertSame(first, dictionary.intern(copy));
+		assertSame(first, dictionary.value(ordinal));
+	}
+
+	@Test
+	void fullDictionaryLeavesNewStringsAlone() {
+		StringDictionary dictionary = dictionary(2);
+		dictionary.ordinal("a");
+		dictionary.ordinal("b");
+		String extra = new String("c");
+
+		assertEquals(StringDictionary.FULL, dictionary.ordinal(extra));
+		assertSame(extra, dictionary.intern(extra));
+		assertEquals(-1, dictionary.find(extra));
+		assertEquals(1, dictionary.ordinal(new String("b")));
+	}
+
+	@Test
+	void internCollapsesDuplicatesOfACatalogue() {
+		// Chaînes telles que produites par la désérialisation : une instance par champ lu
+		StringDictionary dictionary = dictionary(500_000);
+		List<String> fields = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			fields.add(new String("categorie-" + (i % 12)));
+			fields.add(new String("auteur-" + (i % 400)));
+			fields.add(new String("tag-" + (i % 60)));
+			fields.add(new String("tag-" + (i % 7)));
+			fields.add(new String(i % 2 == 0 ? "g" : "cuillère à soupe"));
+		}
+		int distinctValues = new HashSet<>(fields).size();
+
+		fields.replaceAll(dictionary::intern);
+
+		Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+		instances.addAll(fields);
+		double saved = registry.get("string.dictionary.saved.bytes").counter().count();
+		System.out.printf("🔤 %d chaînes, %d valeurs distinctes : %d instances après canonisation, ~%.0f Ko évités%n",
+				fields.size(), distinctValues, instances.size(), saved / 1024);
+		assertEquals(distinctValues, instances.size());
+		assertTrue(saved >= (fields.size() - distinctValues) * 40L);
+	}
+
+	private StringDictionary dictionary(int maxEntries) {
+		StringDictionary dictionary = new StringDictionary();
+		ReflectionTestUtils.setField(dictionary, "meterRegistry", registry);
+		ReflectionTestUtils.setField(dictionary, "maxEntries", maxEntries);
+		ReflectionTestUtils.invokeMethod(dictionary, "registerMetrics");
+		return dictionary;
+	}
+
+}
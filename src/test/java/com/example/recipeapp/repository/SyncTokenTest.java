@@ -0,0 +1,40 @@
+package com.example.recipeapp.repository;
+
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SyncTokenTest {
+
+	private static final Timestamp TIME = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 123_456_789);
+
+	@Test
+	void roundTripWithCursorId() {
+		SyncToken token = new SyncToken(TIME, "recipe-42");
+
+		assertEquals(token, SyncToken.parse(token.encode()));
+	}
+
+	@Test
+	void roundTripWithoutCursorId() {
+		SyncToken token = new SyncToken(TIME, null);
+
+		assertEquals(token, SyncToken.parse(token.encode()));
+	}
+
+	@Test
+	void roundTripKeepsZeroNanos() {
+		SyncToken token = new SyncToken(Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 0), "a");
+
+		assertEquals(token, SyncToken.parse(token.encode()));
+	}
+
+	@Test
+	void invalidTokenIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> SyncToken.parse("not a token"));
+		assertThrows(IllegalArgumentException.class, () -> SyncToken.parse("MTIz"));
+	}
+
+}
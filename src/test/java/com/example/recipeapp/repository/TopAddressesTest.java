@@ -0,0 +1,79 @@
+package com.example.recipeapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopAddressesTest {
+
+	@Test
+	void keepsTheBestAddressesInOrder() {
+		long[] addresses = new Random(42).longs(10_000, 0, 1_000_000).toArray();
+		OffHeapRecipeCatalog.TopAddresses top = new OffHeapRecipeCatalog.TopAddresses(25, Long::compare);
+		for (long address : addresses) {
+			top.offer(address);
+		}
+
+		assertArrayEquals(LongStream.of(addresses).sorted().limit(25).toArray(), top.sorted());
+	}
+
+	@Test
+	void followsAReversedOrder() {
+		long[] addresses = new Random(7).longs(1_000).toArray();
+		OffHeapRecipeCatalog.TopAddresses top = new OffHeapRecipeCatalog.TopAddresses(10, (a, b) -> Long.compare(b, a));
+		for (long address : addresses) {
+			top.offer(address);
+		}
+
+		long[] expected = LongStream.of(addresses).sorted().skip(addresses.length - 10).toArray();
+		reverse(expected);
+		assertArrayEquals(expected, top.sorted());
+	}
+
+	@Test
+	void returnsEveryAddressBelowCapacity() {
+		OffHeapRecipeCatalog.TopAddresses top = new OffHeapRecipeCatalog.TopAddresses(10, Long::compare);
+		for (long address : new long[] {5, 3, 9, 3, 1}) {
+			top.offer(address);
+		}
+
+		assertArrayEquals(new long[] {1, 3, 3, 5, 9}, top.sorted());
+	}
+
+	@Test
+	void zeroCapacityKeepsNothing() {
+		OffHeapRecipeCatalog.TopAddresses top = new OffHeapRecipeCatalog.TopAddresses(0, Long::compare);
+		top.offer(1);
+		top.offer(2);
+
+		assertEquals(0, top.sorted().length);
+	}
+
+	@Test
+	void heapSortMatchesSortingForEveryCapacity() {
+		long[] addresses = new Random(3).longs(200, 0, 50).toArray();
+		long[] sorted = addresses.clone();
+		Arrays.sort(sorted);
+		for (int capacity = 1; capacity <= addresses.length; capacity++) {
+			OffHeapRecipeCatalog.TopAddresses top = new OffHeapRecipeCatalog.TopAddresses(capacity, Long::compare);
+			for (long address : addresses) {
+				top.offer(address);
+			}
+			assertArrayEquals(Arrays.copyOf(sorted, capacity), top.sorted(), "capacité " + capacity);
+		}
+	}
+
+	private static void reverse(long[] values) {
+		for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+			long tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+	}
+
+}
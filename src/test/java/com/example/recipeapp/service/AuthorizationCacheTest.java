@@ -0,0 +1,157 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.Recipe;
+import com.example.recipeapp.model.User;
+import com.example.recipeapp.repository.RecipeRepository;
+import com.example.recipeapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthorizationCacheTest {
+
+	private final RecipeRepository recipeRepository = mock(RecipeRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final AuthorizationCache cache = new AuthorizationCache();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ReflectionTestUtils.setField(cache, "recipeRepository", recipeRepository);
+		ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+		when(recipeRepository.findHeaderById(anyString())).thenReturn(Optional.empty());
+		when(userRepository.findById(anyString())).thenReturn(Optional.empty());
+	}
+
+	@Test
+	void authorAndActiveAdminMayEdit() throws Exception {
+		recipe("r1", "auteur");
+		user("auteur", true, "USER");
+		user("admin", true, "USER", "ADMIN");
+		user("ancien-admin", false, "ADMIN");
+		user("autre", true, "USER");
+
+		assertTrue(cache.canEditRecipe("auteur", "r1"));
+		assertTrue(cache.canEditRecipe("admin", "r1"));
+		assertFalse(cache.canEditRecipe("ancien-admin", "r1"));
+		assertFalse(cache.canEditRecipe("autre", "r1"));
+		assertFalse(cache.canEditRecipe("inconnu", "r1"));
+		assertFalse(cache.canEditRecipe("auteur", "absente"));
+		assertFalse(cache.canEditRecipe(null, "r1"));
+	}
+
+	@Test
+	void eventsDropCachedDecisions() throws Exception {
+		user("u1", true, "USER");
+		assertFalse(cache.canEditRecipe("u1", "r1"));
+
+		// Recette créée après un refus mis en cache
+		recipe("r1", "u1");
+		cache.onAuthorizationChanged(AuthorizationChangedEvent.recipe("r1"));
+		assertTrue(cache.canEditRecipe("u1", "r1"));
+
+		recipe("r1", "u2");
+		assertTrue(cache.canEditRecipe("u1", "r1"));
+		cache.onAuthorizationChanged(AuthorizationChangedEvent.recipe("r1"));
+		assertFalse(cache.canEditRecipe("u1", "r1"));
+
+		user("u1", true, "USER", "ADMIN");
+		cache.onAuthorizationChanged(AuthorizationChangedEvent.user("u1"));
+		assertTrue(cache.canEditRecipe("u1", "r1"));
+	}
+
+	@Test
+	void concurrentChecksReadEachDocumentAboutOnce() throws Exception {
+		int recipes = 200;
+		int users = 50;
+		for (int i = 0; i < recipes; i++) {
+			recipe("r" + i, "u" + (i % users));
+		}
+		for (int i = 0; i < users; i++) {
+			user("u" + i, true, i == 0 ? "ADMIN" : "USER");
+		}
+		int threads = 8;
+		int checksPerThread = 50_000;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		List<Future<Integer>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int seed = t;
+			results.add(executor.submit(() -> {
+				int allowed = 0;
+				for (int i = 0; i < checksPerThread; i++) {
+					int n = i * 31 + seed;
+					if (cache.canEditRecipe("u" + (n % users), "r" + (n % recipes))) {
+						allowed++;
+					}
+				}
+				return allowed;
+			}));
+		}
+		int allowed = 0;
+		for (Future<Integer> result : results) {
+			allowed += result.get();
+		}
+		long nanos = System.nanoTime() - start;
+		executor.shutdown();
+
+		int checks = threads * checksPerThread;
+		int reads = mockingDetails(recipeRepository).getInvocations().size() + mockingDetails(userRepository).getInvocations().size();
+		System.out.printf("🔐 %d vérifications sur %d threads : %.0f/s, %d lectures Firestore (%d sans cache)%n",
+				checks, threads, checks / (nanos / 1e9), reads, 2 * checks);
+		assertTrue(allowed > 0);
+		// Quelques lectures concurrentes d'une même clé froide sont possibles, jamais une par vérification
+		verify(recipeRepository, atMost(recipes * threads)).findHeaderById(anyString());
+		verify(userRepository, atMost(users * threads)).findById(anyString());
+		assertTrue(reads < checks / 100, reads + " lectures");
+	}
+
+	@Test
+	void expiredEntriesAreReloaded() throws Exception {
+		ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+		recipe("r1", "u1");
+		user("u1", true, "USER");
+
+		cache.canEditRecipe("u1", "r1");
+		cache.evictExpired();
+		cache.canEditRecipe("u1", "r1");
+
+		verify(recipeRepository, times(2)).findHeaderById("r1");
+		assertEquals(2, mockingDetails(userRepository).getInvocations().size());
+	}
+
+	private void recipe(String id, String authorId) throws Exception {
+		Recipe recipe = new Recipe();
+		recipe.setId(id);
+		recipe.setAuthorId(authorId);
+		when(recipeRepository.findHeaderById(id)).thenReturn(Optional.of(recipe));
+	}
+
+	private void user(String id, boolean enabled, String... roles) throws Exception {
+		User user = new User();
+		user.setId(id);
+		user.setEnabled(enabled);
+		user.setRoles(List.of(roles));
+		when(userRepository.findById(id)).thenReturn(Optional.of(user));
+	}
+
+}
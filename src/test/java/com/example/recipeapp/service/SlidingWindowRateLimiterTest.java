@@ -0,0 +1,36 @@
+package com.example.recipeapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowRateLimiterTest {
+
+	@Test
+	void refusesPastTheLimit() {
+		SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, 60_000);
+
+		assertTrue(limiter.tryAcquire("alice"));
+		assertTrue(limiter.tryAcquire("alice"));
+		assertTrue(limiter.tryAcquire("alice"));
+		assertFalse(limiter.tryAcquire("alice"));
+		assertTrue(limiter.tryAcquire("bob"));
+	}
+
+	@Test
+	void fullTableRefusesNewKeysUntilEviction() throws InterruptedException {
+		SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1_000, 20);
+		for (int i = 0; i < 100_000; i++) {
+			limiter.tryAcquire("user-" + i);
+		}
+
+		assertFalse(limiter.tryAcquire("new-user"));
+		assertTrue(limiter.tryAcquire("user-1"));
+
+		Thread.sleep(50);
+		limiter.evictExpired();
+		assertTrue(limiter.tryAcquire("new-user"));
+	}
+
+}
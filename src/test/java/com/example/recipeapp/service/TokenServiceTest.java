@@ -0,0 +1,136 @@
+package com.example.recipeapp.service;
+
+import com.example.recipeapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+	private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+
+	@Test
+	void issuedTokenVerifiesWithItsClaims() {
+		TokenService tokens = tokenService(SECRET, 60);
+		long before = Instant.now().getEpochSecond();
+
+		TokenService.IssuedToken issued = tokens.issue(user("u1", "USER", "ADMIN"));
+		TokenService.TokenClaims claims = tokens.verify(issued.getToken()).orElseThrow();
+
+		assertEquals("u1", claims.getUserId());
+		assertEquals(List.of("USER", "ADMIN"), claims.getRoles());
+		assertEquals(issued.getExpiresAt(), claims.getExpiresAt());
+		assertTrue(claims.getExpiresAt() >= before + 3600);
+	}
+
+	@Test
+	void userWithoutRolesGetsAnEmptyList() {
+		TokenService tokens = tokenService(SECRET, 60);
+		User user = user("u1");
+		user.setRoles(null);
+
+		assertEquals(List.of(), tokens.verify(tokens.issue(user).getToken()).orElseThrow().getRoles());
+	}
+
+	@Test
+	void instancesSharingTheSecretAcceptEachOthersTokens() {
+		String token = tokenService(SECRET, 60).issue(user("u1", "USER")).getToken();
+
+		assertTrue(tokenService(SECRET, 60).verify(token).isPresent());
+		assertFalse(tokenService("", 60).verify(token).isPresent());
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		TokenService tokens = tokenService(SECRET, 0);
+
+		assertFalse(tokens.verify(tokens.issue(user("u1", "USER")).getToken()).isPresent());
+	}
+
+	@Test
+	void tamperedPayloadIsRejected() {
+		TokenService tokens = tokenService(SECRET, 60);
+		String token = tokens.issue(user("u1", "USER")).getToken();
+		int separator = token.indexOf('.');
+		String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, separator)), StandardCharsets.UTF_8);
+
+		String forged = payload.replace("u1:USER:", "u2:ADMIN:");
+		String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(forged.getBytes(StandardCharsets.UTF_8))
+				+ token.substring(separator);
+
+		assertFalse(tokens.verify(tampered).isPresent());
+	}
+
+	@Test
+	void tamperedOrMalformedTokensAreRejected() {
+		TokenService tokens = tokenService(SECRET, 60);
+		String token = tokens.issue(user("u1", "USER")).getToken();
+		int signature = token.indexOf('.') + 1;
+		char first = token.charAt(signature);
+		String badSignature = token.substring(0, signature) + (first == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+
+		assertFalse(tokens.verify(badSignature).isPresent());
+		assertFalse(tokens.verify(token.substring(0, token.indexOf('.'))).isPresent());
+		assertFalse(tokens.verify(token.substring(token.indexOf('.'))).isPresent());
+		assertFalse(tokens.verify(token + "!").isPresent());
+		assertFalse(tokens.verify("").isPresent());
+		assertFalse(tokens.verify(null).isPresent());
+	}
+
+	@Test
+	void revokedTokenIsRejectedOthersStayValid() {
+		TokenService tokens = tokenService(SECRET, 60);
+		String revoked = tokens.issue(user("u1", "USER")).getToken();
+		String other = tokens.issue(user("u1", "USER")).getToken();
+
+		tokens.revoke(tokens.verify(revoked).orElseThrow());
+		tokens.evictExpiredRevocations();
+
+		assertFalse(tokens.verify(revoked).isPresent());
+		assertTrue(tokens.verify(other).isPresent());
+	}
+
+	@Test
+	void revokeAllRejectsEarlierTokensOnly() {
+		TokenService tokens = tokenService(SECRET, 60);
+		String earlier = tokens.issue(user("u1", "USER")).getToken();
+		String otherUser = tokens.issue(user("u2", "USER")).getToken();
+
+		tokens.revokeAll("u1");
+		tokens.evictExpiredRevocations();
+		// Un jeton émis dans la même milliseconde que la révocation est refusé : attendre la suivante
+		long revokedAt = System.currentTimeMillis();
+		while (System.currentTimeMillis() == revokedAt) {
+			Thread.onSpinWait();
+		}
+		String later = tokens.issue(user("u1", "USER")).getToken();
+
+		assertFalse(tokens.verify(earlier).isPresent());
+		assertTrue(tokens.verify(otherUser).isPresent());
+		assertTrue(tokens.verify(later).isPresent());
+	}
+
+	private static TokenService tokenService(String secret, long ttlMinutes) {
+		TokenService tokens = new TokenService();
+		ReflectionTestUtils.setField(tokens, "secret", secret);
+		ReflectionTestUtils.setField(tokens, "ttlMinutes", ttlMinutes);
+		tokens.init();
+		return tokens;
+	}
+
+	private static User user(String id, String... roles) {
+		User user = new User();
+		user.setId(id);
+		user.setRoles(List.of(roles));
+		return user;
+	}
+
+}